@@ -0,0 +1,209 @@
+package com.zcp.util;
+
+import java.util.Arrays;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：数组+单链表的哈希表，与 HashMap7 的冲突处理方式相同（链表头插），API 与 HashMap7 保持一致
+ * 不再创建 Node 对象：每个元素的 hash、key、value、next 分别放在 hashes、keys、vals、next 四个平行数组的同一个下标，
+ * 链表指针是 int 下标，每个元素省掉了一个对象头和三个引用；被删除的下标串成空闲链表给后面的插入复用。
+ * heads、next 中存放的是 下标 + 1，数组默认的 0 就表示空桶或链表结束，不需要先填充 -1；
+ * 插入时优先取空闲链表头（最近删除的下标），空闲链表为空时才使用新的下标，扩容后空闲链表按下标从小到大重建。
+ * 扩容时元素下标不变，只需要把四个数组整体复制变长，再按新的桶数重建 heads 和 next。链表过长时不做树化，非线程安全
+ * @version:
+ */
+public class ArrayChainHashMap<K, V> {
+
+    /**
+     * 桶数组，存放链表头元素的下标 + 1，0 表示空桶
+     */
+    private int[] heads;
+
+    private int[] hashes;
+
+    private Object[] keys;
+
+    private Object[] vals;
+
+    /**
+     * 链表中下一个元素的下标 + 1，0 表示链表结束；空闲的下标通过它串成空闲链表
+     */
+    private int[] next;
+
+    /**
+     * 空闲链表头的下标 + 1
+     */
+    private int free;
+
+    /**
+     * 用到过的最大下标 + 1，之后的下标都还没使用过
+     */
+    private int top;
+
+    /**
+     * 数组默认大小
+     */
+    private final static int INIT_ARRAY_SIZE = 8;
+
+    /**
+     * 扩容因子
+     */
+    private final static float FACTOR = 0.75f;
+
+    private int size;
+
+    public ArrayChainHashMap() {
+        this(0);
+    }
+
+    /**
+     * @param capacity 预计存放的元素个数
+     */
+    public ArrayChainHashMap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        int n = INIT_ARRAY_SIZE;
+        while (n < capacity / FACTOR && n < (1 << 30)) {
+            n <<= 1;
+        }
+        heads = new int[n];
+        int entries = (int) (n * FACTOR) + 1;
+        hashes = new int[entries];
+        keys = new Object[entries];
+        vals = new Object[entries];
+        next = new int[entries];
+    }
+
+    public void put(K key, V val) {
+        int hash = hash(key);
+        int bucket = hash & (heads.length - 1);
+        for (int e = heads[bucket]; e != 0; e = next[e - 1]) {
+            int i = e - 1;
+            if (hashes[i] == hash && keys[i].equals(key)) {
+                //已存在直接 修改值
+                vals[i] = val;
+                return;
+            }
+        }
+        //检查是否可以扩容了
+        if (size > heads.length * FACTOR) {
+            transfer();//扩容
+            bucket = hash & (heads.length - 1);
+        }
+        int i;
+        if (free != 0) {
+            i = free - 1;
+            free = next[i];
+        } else {
+            i = top++;
+        }
+        hashes[i] = hash;
+        keys[i] = key;
+        vals[i] = val;
+        //头插法
+        next[i] = heads[bucket];
+        heads[bucket] = i + 1;
+        size++;
+    }
+
+    public V get(K key) {
+        if (key == null) {
+            throw new RuntimeException("key is null");
+        }
+        int i = find(hash(key), key);
+        return i < 0 ? null : (V) vals[i];
+    }
+
+    public boolean containsKey(K key) {
+        return find(hash(key), key) >= 0;
+    }
+
+    public V remove(K key) {
+        int hash = hash(key);
+        int bucket = hash & (heads.length - 1);
+        int pre = 0;
+        for (int e = heads[bucket]; e != 0; pre = e, e = next[e - 1]) {
+            int i = e - 1;
+            if (hashes[i] == hash && keys[i].equals(key)) {
+                if (pre == 0) {
+                    //删除头节点
+                    heads[bucket] = next[i];
+                } else {
+                    next[pre - 1] = next[i];
+                }
+                V old = (V) vals[i];
+                keys[i] = null;
+                vals[i] = null;
+                //放回空闲链表
+                next[i] = free;
+                free = e;
+                size--;
+                return old;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (top > 0) {
+            Arrays.fill(heads, 0);
+            Arrays.fill(keys, 0, top, null);
+            Arrays.fill(vals, 0, top, null);
+            free = top = size = 0;
+        }
+    }
+
+    private int find(int hash, Object key) {
+        for (int e = heads[hash & (heads.length - 1)]; e != 0; e = next[e - 1]) {
+            int i = e - 1;
+            if (hashes[i] == hash && keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 将桶数组扩容成2倍，元素数组整体复制变长；元素下标不变，只重建链表
+     */
+    private void transfer() {
+        int n = heads.length << 1;
+        int entries = (int) (n * FACTOR) + 1;
+        hashes = Arrays.copyOf(hashes, entries);
+        keys = Arrays.copyOf(keys, entries);
+        vals = Arrays.copyOf(vals, entries);
+        next = new int[entries];
+        heads = new int[n];
+        free = 0;
+        //倒序头插，保证空闲链表从小下标开始复用
+        for (int i = top - 1; i >= 0; i--) {
+            if (keys[i] == null) {
+                next[i] = free;
+                free = i + 1;
+            } else {
+                int bucket = hashes[i] & (n - 1);
+                next[i] = heads[bucket];
+                heads[bucket] = i + 1;
+            }
+        }
+    }
+
+    /**
+     * 与 HashMap7 相同的扰动函数：hashCode 和 高16位 亦或运算
+     */
+    private static int hash(Object o) {
+        int h;
+        return (h = o.hashCode()) ^ (h >>> 16);
+    }
+
+}
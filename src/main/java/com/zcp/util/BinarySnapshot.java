@@ -0,0 +1,288 @@
+package com.zcp.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：HashMap7、PriorityQueue 的二进制快照，key/value 通过 Serializer 编码
+ * 快照头：| magic(4) | version(4) | type(4) | size(4) |，之后依次是每个元素：
+ * HashMap7：| incremental(1) | 元素：| hash(4) | keyLen(4) | valLen(4) | key bytes | val bytes | ... |
+ * PriorityQueue：| capacity(4) | arity(4) | 元素按堆数组的顺序：| len(4) | bytes | ... |，版本 1 没有 arity，按二叉堆恢复
+ * 写入时先把元素编码到一块可复用的直接内存缓冲区，满了再整块写入通道，不经过 JVM 堆上的中间拷贝；
+ * 读取时同样按块读入。恢复 HashMap7 时按元素个数预设容量，按快照中的 hash 直接挂到桶上，不调用 hashCode()、不扩容，
+ * 所以 key 的 hashCode() 必须在不同的 JVM 之间保持一致（String、Integer 等）；
+ * 恢复 PriorityQueue 时直接接管快照中已经满足堆序的数组，需要传入与写快照时顺序一致的比较器
+ * 快照来自外部，读取时不信任其中的长度和个数：元素个数、单个元素的长度都不能超过通道中剩余的字节数
+ * （通道大小未知时按 MAX_UNKNOWN_LENGTH 估计），否则按损坏的快照抛出 IOException，不会按错误的长度分配内存；
+ * 版本兼容：写入总是使用最新版本，读取兼容所有旧版本
+ * @version:
+ */
+public final class BinarySnapshot {
+
+    private final static int MAGIC = 0x5A435053;
+    private final static int VERSION = 2;
+
+    private final static int TYPE_HASH_MAP = 1;
+    private final static int TYPE_PRIORITY_QUEUE = 2;
+
+    private final static int HEADER_SIZE = 16;
+
+    /**
+     * 缓冲区默认大小，单个元素更大时临时扩大
+     */
+    private final static int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * 通道不是 SeekableByteChannel、无法知道剩余字节数时，假定快照不超过这么大
+     */
+    private final static long MAX_UNKNOWN_LENGTH = 1L << 30;
+
+    /**
+     * 每个元素至少占用的字节数，用来检查元素个数是否可信
+     */
+    private final static int MIN_MAP_ENTRY_SIZE = 12;
+    private final static int MIN_QUEUE_ELEMENT_SIZE = 4;
+
+    private BinarySnapshot() {
+    }
+
+    public static <K, V> void writeHashMap(HashMap7<K, V> map, Serializer<K> keySerializer, Serializer<V> valSerializer,
+                                           WritableByteChannel channel) throws IOException {
+        Output out = new Output(channel);
+        writeHeader(out, TYPE_HASH_MAP, map.size());
+        out.ensure(1);
+        out.buf.put((byte) (map.isIncremental() ? 1 : 0));
+        for (Map.Entry<K, V> e : map.entrySet()) {
+            K key = e.getKey();
+            V val = e.getValue();
+            int keyLen = keySerializer.size(key);
+            int valLen = valSerializer.size(val);
+            out.ensure(12 + keyLen + valLen);
+            out.buf.putInt(((HashMap7.Node<K, V>) e).hash).putInt(keyLen).putInt(valLen);
+            write(out.buf, key, keySerializer, keyLen);
+            write(out.buf, val, valSerializer, valLen);
+        }
+        out.flush();
+    }
+
+    public static <K, V> HashMap7<K, V> readHashMap(ReadableByteChannel channel, Serializer<K> keySerializer,
+                                                    Serializer<V> valSerializer) throws IOException {
+        Input in = new Input(channel);
+        int size = readHeader(in, TYPE_HASH_MAP);
+        checkCount(in, size, MIN_MAP_ENTRY_SIZE);
+        in.ensure(1);
+        HashMap7<K, V> map = new HashMap7<K, V>(size, in.buf.get() == 1);
+        for (int i = 0; i < size; i++) {
+            in.ensure(12);
+            int hash = in.buf.getInt();
+            int keyLen = in.buf.getInt();
+            int valLen = in.buf.getInt();
+            if (keyLen < 0 || valLen < 0) {
+                throw new IOException("corrupted snapshot: length " + keyLen + ", " + valLen);
+            }
+            in.ensure(keyLen + valLen);
+            K key = read(in.buf, keySerializer, keyLen);
+            V val = read(in.buf, valSerializer, valLen);
+            map.restoreNode(hash, key, val);
+        }
+        map.restoreDone();
+        return map;
+    }
+
+    public static <E> void writePriorityQueue(PriorityQueue<E> queue, Serializer<E> serializer,
+                                              WritableByteChannel channel) throws IOException {
+        Output out = new Output(channel);
+        int size = queue.size();
+        writeHeader(out, TYPE_PRIORITY_QUEUE, size);
+        out.ensure(8);
+        out.buf.putInt(queue.getCapacity()).putInt(queue.getArity());
+        Object[] heap = queue.getQueue();
+        for (int i = 0; i < size; i++) {
+            E e = (E) heap[i];
+            int len = serializer.size(e);
+            out.ensure(4 + len);
+            out.buf.putInt(len);
+            write(out.buf, e, serializer, len);
+        }
+        out.flush();
+    }
+
+    /**
+     * @param comparator 与写快照时的队列顺序一致，为 null 时元素需要实现 Comparable
+     */
+    public static <E> PriorityQueue<E> readPriorityQueue(ReadableByteChannel channel, Serializer<E> serializer,
+                                                         Comparator<E> comparator) throws IOException {
+        Input in = new Input(channel);
+        int size = readHeader(in, TYPE_PRIORITY_QUEUE);
+        checkCount(in, size, MIN_QUEUE_ELEMENT_SIZE);
+        in.ensure(4);
+        int capacity = in.buf.getInt();
+        if (capacity < size) {
+            throw new IOException("corrupted snapshot: capacity " + capacity + " < size " + size);
+        }
+        int arity = 2;
+        if (in.version >= 2) {
+            in.ensure(4);
+            arity = in.buf.getInt();
+            if (arity < 2) {
+                throw new IOException("corrupted snapshot: arity " + arity);
+            }
+        }
+        //容量只是提示，不对应快照中的数据，超过正常扩容能达到的大小时按元素个数恢复
+        if (capacity > Math.max(2L * size, BUFFER_SIZE)) {
+            capacity = size;
+        }
+        Object[] heap = new Object[Math.max(capacity, 1)];
+        for (int i = 0; i < size; i++) {
+            in.ensure(4);
+            int len = in.buf.getInt();
+            in.ensure(len);
+            heap[i] = read(in.buf, serializer, len);
+        }
+        PriorityQueue<E> queue = new PriorityQueue<E>(0, comparator, arity);
+        queue.adopt(heap, size);
+        return queue;
+    }
+
+    private static void writeHeader(Output out, int type, int size) throws IOException {
+        out.ensure(HEADER_SIZE);
+        out.buf.putInt(MAGIC).putInt(VERSION).putInt(type).putInt(size);
+    }
+
+    /**
+     * 兼容旧版本的快照，版本号记录在 in.version 中
+     *
+     * @return 元素个数
+     */
+    private static int readHeader(Input in, int type) throws IOException {
+        in.ensure(HEADER_SIZE);
+        if (in.buf.getInt() != MAGIC || (in.version = in.buf.getInt()) < 1 || in.version > VERSION
+                || in.buf.getInt() != type) {
+            throw new IOException("not a " + (type == TYPE_HASH_MAP ? "HashMap7" : "PriorityQueue") + " snapshot");
+        }
+        int size = in.buf.getInt();
+        if (size < 0) {
+            throw new IOException("corrupted snapshot: size " + size);
+        }
+        return size;
+    }
+
+    /**
+     * 每个元素至少占 minSize 个字节，count 个元素超过剩余的字节数说明快照已经损坏
+     */
+    private static void checkCount(Input in, int count, int minSize) throws IOException {
+        if ((long) count * minSize > in.available()) {
+            throw new IOException("corrupted snapshot: size " + count + " exceeds remaining bytes");
+        }
+    }
+
+    private static <T> void write(ByteBuffer buf, T t, Serializer<T> serializer, int len) {
+        int position = buf.position();
+        serializer.write(t, buf);
+        if (buf.position() - position != len) {
+            throw new IllegalStateException("serializer wrote " + (buf.position() - position) + " bytes, expected " + len);
+        }
+    }
+
+    private static <T> T read(ByteBuffer buf, Serializer<T> serializer, int len) {
+        int end = buf.position() + len;
+        T t = serializer.read(buf, len);
+        buf.position(end);
+        return t;
+    }
+
+    /**
+     * 写缓冲区：position 之前是待写入通道的数据
+     */
+    final static class Output {
+        final WritableByteChannel channel;
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * 保证缓冲区还能写入 n 个字节
+         */
+        void ensure(int n) throws IOException {
+            if (buf.remaining() >= n) {
+                return;
+            }
+            flush();
+            if (buf.capacity() < n) {
+                buf = ByteBuffer.allocateDirect(n);
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            buf.clear();
+        }
+    }
+
+    /**
+     * 读缓冲区：position 到 limit 之间是已经读入、还没有解析的数据
+     */
+    final static class Input {
+        final ReadableByteChannel channel;
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        int version;
+
+        Input(ReadableByteChannel channel) {
+            this.channel = channel;
+            buf.limit(0);
+        }
+
+        /**
+         * 保证缓冲区中至少有 n 个字节可以解析
+         */
+        void ensure(int n) throws IOException {
+            if (n < 0) {
+                throw new IOException("corrupted snapshot: length " + n);
+            }
+            if (buf.remaining() >= n) {
+                return;
+            }
+            if (buf.capacity() < n) {
+                //只有长度超过缓冲区时才需要检查，更短的损坏长度会在读到通道末尾时失败
+                if (n > available()) {
+                    throw new IOException("corrupted snapshot: length " + n + " exceeds remaining bytes");
+                }
+                ByteBuffer bigger = ByteBuffer.allocateDirect(n);
+                bigger.put(buf);
+                buf = bigger;
+            } else {
+                buf.compact();
+            }
+            while (buf.position() < n) {
+                if (channel.read(buf) < 0) {
+                    throw new IOException("unexpected end of snapshot");
+                }
+            }
+            buf.flip();
+        }
+
+        /**
+         * 还没有解析的字节数：缓冲区中剩余的加上通道中剩余的
+         */
+        long available() throws IOException {
+            if (channel instanceof SeekableByteChannel) {
+                SeekableByteChannel c = (SeekableByteChannel) channel;
+                return buf.remaining() + Math.max(0L, c.size() - c.position());
+            }
+            return MAX_UNKNOWN_LENGTH;
+        }
+    }
+
+}
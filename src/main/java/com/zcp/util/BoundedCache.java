@@ -0,0 +1,411 @@
+package com.zcp.util;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：基于 HashMap7 的有界缓存，淘汰策略为 W-TinyLFU
+ * 1.新元素先进入窗口 LRU（约占总容量的 1%），用来接纳突发的新热点
+ * 2.窗口淘汰出来的元素作为候选者，与主区域 LRU 队尾的元素比较访问频率，频率高的留下，频率由 FrequencySketch 估算
+ * 3.主区域分为试用区和保护区（约占主区域的 80%），在试用区被再次访问的元素晋升到保护区
+ * 按元素个数或者按 Weigher 计算的权重限制容量，非线程安全
+ * @version:
+ */
+public class BoundedCache<K, V> {
+
+    /**
+     * 窗口占总容量的比例
+     */
+    private final static double WINDOW_PERCENT = 0.01d;
+
+    /**
+     * 保护区占主区域的比例
+     */
+    private final static double PROTECTED_PERCENT = 0.8d;
+
+    private final static int WINDOW = 0;
+    private final static int PROBATION = 1;
+    private final static int PROTECTED = 2;
+
+    private final HashMap7<K, CacheNode<K, V>> data;
+
+    private final Weigher<? super K, ? super V> weigher;
+
+    private final FrequencySketch sketch;
+
+    private final long maximum;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+
+    /**
+     * 三个 LRU 队列，头部是最久未访问的元素
+     */
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<K, V>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<K, V>();
+    private final AccessOrderDeque<K, V> protect = new AccessOrderDeque<K, V>();
+
+    private long windowWeight;
+    private long protectedWeight;
+    private long weightedSize;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * 按元素个数限制容量
+     */
+    public BoundedCache(long maximumSize) {
+        this(maximumSize, null);
+    }
+
+    /**
+     * 按权重限制容量
+     *
+     * @param maximumWeight 所有元素的权重之和的上限
+     * @param weigher       为 null 时每个元素的权重为 1
+     */
+    public BoundedCache(long maximumWeight, Weigher<? super K, ? super V> weigher) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight <= 0");
+        }
+        this.maximum = maximumWeight;
+        this.weigher = weigher;
+        this.windowMaximum = Math.max(1L, (long) (maximumWeight * WINDOW_PERCENT));
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_PERCENT);
+        this.data = new HashMap7<K, CacheNode<K, V>>();
+        //按权重限制时无法准确知道元素个数，sketch 最多按 2^20 个元素估计
+        this.sketch = new FrequencySketch((int) Math.min(maximumWeight, 1 << 20));
+    }
+
+    /**
+     * 计算元素权重
+     */
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    final static class CacheNode<K, V> {
+        final K key;
+        V value;
+        int weight;
+        int queue;
+        CacheNode<K, V> prev;
+        CacheNode<K, V> next;
+
+        CacheNode(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    public V get(K key) {
+        CacheNode<K, V> node = data.get(key);
+        sketch.increment(key);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     * 放入缓存，权重大于总容量的元素不会被缓存
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value is null");
+        }
+        int weight = weigher == null ? 1 : weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight < 0");
+        }
+        CacheNode<K, V> node = data.get(key);
+        sketch.increment(key);
+        if (node != null) {
+            //已存在：更新值和权重
+            int delta = weight - node.weight;
+            node.value = value;
+            node.weight = weight;
+            weightedSize += delta;
+            if (node.queue == WINDOW) {
+                windowWeight += delta;
+            } else if (node.queue == PROTECTED) {
+                protectedWeight += delta;
+            }
+            onAccess(node);
+        } else {
+            if (weight > maximum) {
+                return;
+            }
+            node = new CacheNode<K, V>(key, value, weight);
+            node.queue = WINDOW;
+            data.put(key, node);
+            window.addLast(node);
+            windowWeight += weight;
+            weightedSize += weight;
+        }
+        evict();
+    }
+
+    public V remove(K key) {
+        CacheNode<K, V> node = data.remove(key);
+        if (node == null) {
+            return null;
+        }
+        unlink(node);
+        return node.value;
+    }
+
+    public boolean containsKey(K key) {
+        return data.containsKey(key);
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * 当前所有元素的权重之和
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 命中率，还没有被查询过时返回 1
+     */
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0d : (double) hitCount / requestCount;
+    }
+
+    /**
+     * 元素被访问：窗口和保护区内移到队尾，试用区的元素晋升到保护区
+     */
+    private void onAccess(CacheNode<K, V> node) {
+        if (node.queue == WINDOW) {
+            window.moveToLast(node);
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+            node.queue = PROTECTED;
+            protect.addLast(node);
+            protectedWeight += node.weight;
+            //保护区满了，把最久未访问的降级到试用区
+            while (protectedWeight > protectedMaximum && protect.first != node) {
+                CacheNode<K, V> demoted = protect.removeFirst();
+                protectedWeight -= demoted.weight;
+                demoted.queue = PROBATION;
+                probation.addLast(demoted);
+            }
+        } else {
+            protect.moveToLast(node);
+        }
+    }
+
+    /**
+     * 淘汰：窗口超出容量的元素移到试用区成为候选者，总权重超出容量时候选者与试用区队头的元素比较频率，淘汰频率低的
+     */
+    private void evict() {
+        CacheNode<K, V> candidates = null;
+        int candidateCount = 0;
+        while (windowWeight > windowMaximum) {
+            CacheNode<K, V> node = window.removeFirst();
+            windowWeight -= node.weight;
+            node.queue = PROBATION;
+            probation.addLast(node);
+            if (candidates == null) {
+                candidates = node;
+            }
+            candidateCount++;
+        }
+        while (weightedSize > maximum) {
+            CacheNode<K, V> victim = probation.first;
+            if (victim == null) {
+                victim = protect.first != null ? protect.first : window.first;
+            }
+            CacheNode<K, V> candidate = candidateCount > 0 ? candidates : null;
+            if (candidate == null || candidate == victim) {
+                //没有候选者，或候选者本身就在队头，直接淘汰队头
+                if (candidate != null) {
+                    candidates = candidate.next;
+                    candidateCount--;
+                }
+                evictNode(victim);
+                continue;
+            }
+            candidates = candidate.next;
+            candidateCount--;
+            if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evictNode(victim);
+            } else {
+                evictNode(candidate);
+            }
+        }
+    }
+
+    private void evictNode(CacheNode<K, V> node) {
+        data.remove(node.key);
+        unlink(node);
+        evictionCount++;
+    }
+
+    private void unlink(CacheNode<K, V> node) {
+        weightedSize -= node.weight;
+        if (node.queue == WINDOW) {
+            window.remove(node);
+            windowWeight -= node.weight;
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+        } else {
+            protect.remove(node);
+            protectedWeight -= node.weight;
+        }
+    }
+
+    /**
+     * 按访问顺序排列的双向链表
+     */
+    final static class AccessOrderDeque<K, V> {
+        CacheNode<K, V> first;
+        CacheNode<K, V> last;
+
+        void addLast(CacheNode<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        CacheNode<K, V> removeFirst() {
+            CacheNode<K, V> node = first;
+            remove(node);
+            return node;
+        }
+
+        void remove(CacheNode<K, V> node) {
+            CacheNode<K, V> prev = node.prev, next = node.next;
+            if (prev == null) {
+                first = next;
+            } else {
+                prev.next = next;
+            }
+            if (next == null) {
+                last = prev;
+            } else {
+                next.prev = prev;
+            }
+            node.prev = node.next = null;
+        }
+
+        void moveToLast(CacheNode<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Count-Min Sketch 估算访问频率
+     * 每个 long 存放 16 个 4bit 计数器，一个元素在 4 个不同的 long 里各占一个计数器，取最小值作为频率；
+     * 计数次数达到 10 倍容量时所有计数器减半，让过去的热点逐渐冷却
+     */
+    final static class FrequencySketch {
+
+        private final static long[] SEED = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+        private final static long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int size;
+
+        FrequencySketch(int maximumSize) {
+            int n = 1;
+            while (n < maximumSize && n < (1 << 30)) {
+                n <<= 1;
+            }
+            table = new long[n];
+            tableMask = n - 1;
+            sampleSize = (int) Math.min(10L * n, Integer.MAX_VALUE);
+        }
+
+        int frequency(Object e) {
+            int hash = spread(e.hashCode());
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(Object e) {
+            int hash = spread(e.hashCode());
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+            if (added && ++size == sampleSize) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(int i, int j) {
+            int offset = j << 2;
+            long mask = 0xfL << offset;
+            if ((table[i] & mask) != mask) {
+                table[i] += 1L << offset;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 所有计数器减半
+         */
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size >>>= 1;
+        }
+
+        private int indexOf(int item, int i) {
+            long hash = (item + SEED[i]) * SEED[i];
+            hash += (hash >>> 32);
+            return ((int) hash) & tableMask;
+        }
+
+        private static int spread(int h) {
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            return (h >>> 16) ^ h;
+        }
+    }
+
+}
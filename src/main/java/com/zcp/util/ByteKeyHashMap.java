@@ -0,0 +1,477 @@
+package com.zcp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：key 为字节串的哈希表，适合大量短字符串 key 的场景
+ * 所有 key 的 UTF-8 字节连续存放在一个共享的 byte[]（slab）中，每个槽位只记录 hash、key 在 slab 中的偏移和长度，
+ * 不为 key 创建 String、byte[] 或 Node 对象；比较 key 时先比 hash 和长度，再逐字节比较。
+ * 可以用 CharSequence 或者 byte[] 的一段来查找，CharSequence 边遍历边编码成 UTF-8 参与计算和比较，不会先创建 String。
+ * 线性探测 + backward shift 删除，没有墓碑；删除的 key 在 slab 中留下的空洞在 slab 写满时通过压缩回收：
+ * 只把存活的 key 复制到新的 slab，压缩之后仍然超过一半时 slab 加倍，避免频繁压缩。
+ * 哈希表扩容时使用槽位中缓存的 hash，不读取 key 的字节，key 在 slab 中的位置也不变。非线程安全
+ * @version:
+ */
+public class ByteKeyHashMap<V> {
+
+    /**
+     * 每个槽位的 hash，0 表示空槽（真实 hash 为 0 时会被改成 1）
+     */
+    private int[] hashes;
+
+    /**
+     * key 在 slab 中的偏移和长度
+     */
+    private int[] offsets;
+    private int[] lens;
+
+    private Object[] vals;
+
+    private byte[] slab;
+
+    /**
+     * slab 中已使用的字节数，其中 garbage 个字节属于已删除的 key
+     */
+    private int slabUsed;
+    private int garbage;
+
+    /**
+     * 数组默认大小
+     */
+    private final static int INIT_ARRAY_SIZE = 8;
+
+    /**
+     * 扩容因子
+     */
+    private final static float FACTOR = 0.75f;
+
+    /**
+     * slab 默认大小
+     */
+    private final static int INIT_SLAB_SIZE = 64;
+
+    private int size;
+
+    private int threshold;
+
+    public ByteKeyHashMap() {
+        this(INIT_ARRAY_SIZE);
+    }
+
+    /**
+     * @param capacity 预计存放的元素个数
+     */
+    public ByteKeyHashMap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        init(tableSizeFor((int) Math.ceil(capacity / FACTOR)));
+        slab = new byte[INIT_SLAB_SIZE];
+    }
+
+    private void init(int length) {
+        hashes = new int[length];
+        offsets = new int[length];
+        lens = new int[length];
+        vals = new Object[length];
+        threshold = (int) (length * FACTOR);
+    }
+
+    /**
+     * key 按 UTF-8 编码后存放
+     *
+     * @return 原来的值
+     */
+    public V put(CharSequence key, V val) {
+        long hl = hashAndLength(key);
+        int hash = (int) hl, len = (int) (hl >>> 32);
+        int index = find(key, hash, len);
+        if (index >= 0) {
+            V old = (V) vals[index];
+            vals[index] = val;
+            return old;
+        }
+        int off = reserve(len);
+        encode(key, slab, off);
+        insert(-index - 1, hash, off, len, val);
+        return null;
+    }
+
+    /**
+     * key 为 bytes[off, off + len)，字节会被复制到 slab 中
+     *
+     * @return 原来的值
+     */
+    public V put(byte[] bytes, int off, int len, V val) {
+        checkRange(bytes, off, len);
+        int hash = hash(bytes, off, len);
+        int index = find(bytes, off, len, hash);
+        if (index >= 0) {
+            V old = (V) vals[index];
+            vals[index] = val;
+            return old;
+        }
+        int slabOff = reserve(len);
+        System.arraycopy(bytes, off, slab, slabOff, len);
+        insert(-index - 1, hash, slabOff, len, val);
+        return null;
+    }
+
+    public V get(CharSequence key) {
+        long hl = hashAndLength(key);
+        int index = find(key, (int) hl, (int) (hl >>> 32));
+        return index < 0 ? null : (V) vals[index];
+    }
+
+    public V get(byte[] bytes, int off, int len) {
+        checkRange(bytes, off, len);
+        int index = find(bytes, off, len, hash(bytes, off, len));
+        return index < 0 ? null : (V) vals[index];
+    }
+
+    public boolean containsKey(CharSequence key) {
+        long hl = hashAndLength(key);
+        return find(key, (int) hl, (int) (hl >>> 32)) >= 0;
+    }
+
+    public boolean containsKey(byte[] bytes, int off, int len) {
+        checkRange(bytes, off, len);
+        return find(bytes, off, len, hash(bytes, off, len)) >= 0;
+    }
+
+    public V remove(CharSequence key) {
+        long hl = hashAndLength(key);
+        return removeAt(find(key, (int) hl, (int) (hl >>> 32)));
+    }
+
+    public V remove(byte[] bytes, int off, int len) {
+        checkRange(bytes, off, len);
+        return removeAt(find(bytes, off, len, hash(bytes, off, len)));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (size > 0 || slabUsed > 0) {
+            init(hashes.length);
+            slabUsed = garbage = size = 0;
+        }
+    }
+
+    /**
+     * 遍历所有元素，每个 key 都会解码成一个新的 String
+     */
+    public void forEach(BiConsumer<? super String, ? super V> action) {
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] != 0) {
+                action.accept(new String(slab, offsets[i], lens[i], StandardCharsets.UTF_8), (V) vals[i]);
+            }
+        }
+    }
+
+    /**
+     * slab 中已使用的字节数（包括已删除但还没有被压缩回收的部分）
+     */
+    public int slabBytes() {
+        return slabUsed;
+    }
+
+    /**
+     * @return 槽位下标，不存在时返回 -(应该插入的槽位 + 1)
+     */
+    private int find(CharSequence key, int hash, int len) {
+        int mask = hashes.length - 1;
+        int index = hash & mask;
+        int h;
+        while ((h = hashes[index]) != 0) {
+            if (h == hash && lens[index] == len && equals(key, offsets[index])) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -index - 1;
+    }
+
+    private int find(byte[] bytes, int off, int len, int hash) {
+        int mask = hashes.length - 1;
+        int index = hash & mask;
+        int h;
+        while ((h = hashes[index]) != 0) {
+            if (h == hash && lens[index] == len && equals(bytes, off, len, offsets[index])) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -index - 1;
+    }
+
+    /**
+     * 长度相同的前提下，key 编码后的字节是否与 slab[off, off + len) 相同
+     */
+    private boolean equals(CharSequence key, int off) {
+        int n = key.length();
+        for (int i = 0; i < n; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                //ASCII 快速路径
+                if (slab[off++] != c) {
+                    return false;
+                }
+                continue;
+            }
+            int cp = codePoint(key, i, c);
+            if (cp > 0xFFFF) {
+                i++;
+            }
+            int bytes = utf8Length(cp);
+            for (int k = 0; k < bytes; k++) {
+                if (slab[off++] != utf8Byte(cp, bytes, k)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean equals(byte[] bytes, int off, int len, int slabOff) {
+        for (int i = 0; i < len; i++) {
+            if (bytes[off + i] != slab[slabOff + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int index, int hash, int off, int len, Object val) {
+        hashes[index] = hash;
+        offsets[index] = off;
+        lens[index] = len;
+        vals[index] = val;
+        if (++size > threshold) {
+            transfer();//扩容
+        }
+    }
+
+    private V removeAt(int index) {
+        if (index < 0) {
+            return null;
+        }
+        V old = (V) vals[index];
+        garbage += lens[index];
+        shiftKeys(index);
+        size--;
+        return old;
+    }
+
+    /**
+     * backward shift：删除 index 之后，把探测链上可以前移的元素往前挪，保证查找不会在空槽处提前终止
+     */
+    private void shiftKeys(int index) {
+        int mask = hashes.length - 1;
+        int last;
+        for (; ; ) {
+            index = ((last = index) + 1) & mask;
+            int h;
+            for (; ; ) {
+                if ((h = hashes[index]) == 0) {
+                    hashes[last] = 0;
+                    vals[last] = null;
+                    return;
+                }
+                int ideal = h & mask;
+                //ideal 不在 (last, index] 区间内，说明可以挪到 last
+                if (last <= index ? last >= ideal || ideal > index : last >= ideal && ideal > index) {
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+            hashes[last] = h;
+            offsets[last] = offsets[index];
+            lens[last] = lens[index];
+            vals[last] = vals[index];
+        }
+    }
+
+    /**
+     * 在 slab 末尾预留 len 个字节，空间不够时把存活的 key 压缩到新的 slab 中，必要时扩大
+     *
+     * @return 预留空间的偏移
+     */
+    private int reserve(int len) {
+        if (len > slab.length - slabUsed) {
+            long live = (long) slabUsed - garbage;
+            long needed = live + len;
+            long capacity = slab.length;
+            //压缩之后仍然超过一半，扩容，避免频繁压缩
+            while (capacity < needed * 2) {
+                capacity <<= 1;
+            }
+            if (capacity > Integer.MAX_VALUE - 8) {
+                if (needed > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("slab is full");
+                }
+                capacity = Integer.MAX_VALUE - 8;
+            }
+            byte[] newSlab = new byte[(int) capacity];
+            int p = 0;
+            for (int i = 0; i < hashes.length; i++) {
+                if (hashes[i] != 0) {
+                    System.arraycopy(slab, offsets[i], newSlab, p, lens[i]);
+                    offsets[i] = p;
+                    p += lens[i];
+                }
+            }
+            slab = newSlab;
+            slabUsed = p;
+            garbage = 0;
+        }
+        int off = slabUsed;
+        slabUsed += len;
+        return off;
+    }
+
+    /**
+     * 将原来的数组扩容成2倍，hash 已经缓存，不需要读取 key 的字节
+     */
+    private void transfer() {
+        int[] oldHashes = hashes;
+        int[] oldOffsets = offsets;
+        int[] oldLens = lens;
+        Object[] oldVals = vals;
+        init(oldHashes.length << 1);
+        int mask = hashes.length - 1;
+        for (int i = 0; i < oldHashes.length; i++) {
+            int h = oldHashes[i];
+            if (h != 0) {
+                int index = h & mask;
+                while (hashes[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                hashes[index] = h;
+                offsets[index] = oldOffsets[i];
+                lens[index] = oldLens[i];
+                vals[index] = oldVals[i];
+            }
+        }
+    }
+
+    /**
+     * 把 key 编码成 UTF-8 写入 dst[off, ...)，与 String.getBytes(UTF_8) 的结果相同
+     */
+    private static void encode(CharSequence key, byte[] dst, int off) {
+        int n = key.length();
+        for (int i = 0; i < n; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                dst[off++] = (byte) c;
+                continue;
+            }
+            int cp = codePoint(key, i, c);
+            if (cp > 0xFFFF) {
+                i++;
+            }
+            int bytes = utf8Length(cp);
+            for (int k = 0; k < bytes; k++) {
+                dst[off++] = utf8Byte(cp, bytes, k);
+            }
+        }
+    }
+
+    /**
+     * 一次遍历同时算出 UTF-8 编码后的 hash 和字节数，hash 与 hash(byte[], int, int) 对同样的字节结果相同
+     *
+     * @return 高 32 位为字节数，低 32 位为 hash
+     */
+    private static long hashAndLength(CharSequence key) {
+        int n = key.length();
+        int h = 1;
+        int len = 0;
+        for (int i = 0; i < n; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                h = 31 * h + c;
+                len++;
+                continue;
+            }
+            int cp = codePoint(key, i, c);
+            if (cp > 0xFFFF) {
+                i++;
+            }
+            int bytes = utf8Length(cp);
+            for (int k = 0; k < bytes; k++) {
+                h = 31 * h + utf8Byte(cp, bytes, k);
+            }
+            len += bytes;
+        }
+        return ((long) len << 32) | (spread(h) & 0xFFFFFFFFL);
+    }
+
+    private static int hash(byte[] bytes, int off, int len) {
+        int h = 1;
+        for (int i = off; i < off + len; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return spread(h);
+    }
+
+    /**
+     * 位置 i 上的码点；落单的代理字符与 String.getBytes(UTF_8) 一样按 '?' 处理
+     */
+    private static int codePoint(CharSequence key, int i, char c) {
+        if (Character.isHighSurrogate(c) && i + 1 < key.length() && Character.isLowSurrogate(key.charAt(i + 1))) {
+            return Character.toCodePoint(c, key.charAt(i + 1));
+        }
+        return Character.isSurrogate(c) ? '?' : c;
+    }
+
+    private static int utf8Length(int cp) {
+        return cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+    }
+
+    /**
+     * 码点编码成 UTF-8 之后的第 k 个字节：首字节为前缀 + 高位，之后每个字节为 10 + 6 位
+     */
+    private static byte utf8Byte(int cp, int bytes, int k) {
+        if (bytes == 1) {
+            return (byte) cp;
+        }
+        int shift = 6 * (bytes - 1 - k);
+        if (k == 0) {
+            return (byte) (((0xFF00 >> bytes) & 0xFF) | (cp >> shift));
+        }
+        return (byte) (0x80 | ((cp >> shift) & 0x3F));
+    }
+
+    private static void checkRange(byte[] bytes, int off, int len) {
+        if (off < 0 || len < 0 || off > bytes.length - len) {
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + bytes.length);
+        }
+    }
+
+    private static int tableSizeFor(int c) {
+        int n = INIT_ARRAY_SIZE;
+        while (n < c && n < (1 << 30)) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * 与 HashMap7 相同的扰动函数，0 被保留用来表示空槽
+     */
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        return h == 0 ? 1 : h;
+    }
+
+}
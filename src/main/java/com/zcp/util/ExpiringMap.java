@@ -0,0 +1,403 @@
+package com.zcp.util;
+
+import com.zcp.util.concurrent.ScheduledExecutorService;
+import com.zcp.util.concurrent.ScheduledThreadPoolExecutor;
+import com.zcp.util.concurrent.locks.ReentrantLock;
+
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：带过期时间的线程安全哈希表，基于 HashMap7
+ * 1.支持写入后过期（expireAfterWrite）和访问后过期（expireAfterAccess），两者都设置时先到者生效
+ * 2.过期时间记录在按时间排序的 LongPriorityQueue 中，清理时只弹出已经到期的记录，不需要扫描整个 map；
+ * System.nanoTime() 的起点是任意的，时间 + TTL 可能回绕成负数，而 LongPriorityQueue 直接按大小比较，
+ * 所以所有时间都记录为距构造时刻的纳秒数（now - base），从 0 开始递增，加上 TTL 溢出时说明几百年内都不会过期，按不过期处理；
+ * 访问只修改元素上的过期时间，不调整队列，到期的记录被弹出时如果元素的过期时间已经推后，再按新时间放回队列（惰性调整）
+ * 3.读操作遇到已经过期但还没被清理的元素，当作不存在并顺手删除
+ * 4.传入 ScheduledExecutorService 时按固定间隔在后台清理；不传时只在 put 和 cleanUp() 时清理。
+ * 定时线程池中每个定时任务永久占用一个核心线程，而且不能取消，所以同一个线程池、同一个清理间隔的所有 map 共用一个清理任务，
+ * 任务只通过弱引用持有 map，close() 或者被回收的 map 会从任务中移除；每一种清理间隔会占用线程池的一个核心线程，
+ * 线程池已经关闭或者没有空闲的核心线程时构造方法直接抛出 IllegalStateException，而不是静默地不做后台清理
+ * 所有操作由同一把 ReentrantLock 保护
+ * @version:
+ */
+public class ExpiringMap<K, V> implements Closeable {
+
+    private final HashMap7<K, Entry<K, V>> data = new HashMap7<K, Entry<K, V>>();
+
+    /**
+     * 过期记录，按 deadline 排序，可能包含已经删除的元素的过期记录
+     */
+    private final LongPriorityQueue<Entry<K, V>> expiries = new LongPriorityQueue<Entry<K, V>>();
+
+    /**
+     * 纳秒时钟，默认是 System.nanoTime()，测试时可以换成手动推进的时钟
+     */
+    private final LongSupplier ticker;
+
+    /**
+     * 构造时 ticker 的读数，map 内部的时间都是相对它的纳秒数
+     */
+    private final long base;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 过期时间，0 表示不限制
+     */
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+
+    private volatile boolean closed;
+
+    private long expiredCount;
+
+    /**
+     * 线程池 -> 清理间隔(纳秒) -> 清理任务
+     */
+    private final static Map<ScheduledExecutorService, Map<Long, Sweeper>> SWEEPERS =
+            new WeakHashMap<ScheduledExecutorService, Map<Long, Sweeper>>();
+
+    /**
+     * @param expireAfterWrite  写入之后多久过期，0 表示不限制
+     * @param expireAfterAccess 最后一次访问之后多久过期，0 表示不限制
+     */
+    public ExpiringMap(long expireAfterWrite, long expireAfterAccess, TimeUnit unit) {
+        this(expireAfterWrite, expireAfterAccess, unit, System::nanoTime);
+    }
+
+    /**
+     * @param ticker 纳秒时钟
+     */
+    ExpiringMap(long expireAfterWrite, long expireAfterAccess, TimeUnit unit, LongSupplier ticker) {
+        if (expireAfterWrite < 0 || expireAfterAccess < 0) {
+            throw new IllegalArgumentException("expire time < 0");
+        }
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        this.expireAfterAccessNanos = unit.toNanos(expireAfterAccess);
+        this.ticker = ticker;
+        this.base = ticker.getAsLong();
+    }
+
+    /**
+     * @param scheduler    执行后台清理的定时线程池，同一个清理间隔只会占用其中一个核心线程
+     * @param cleanupDelay 两次清理之间的间隔，单位与 unit 相同
+     * @throws IllegalStateException 需要新建清理任务，但线程池已经关闭或者没有空闲的核心线程
+     */
+    public ExpiringMap(long expireAfterWrite, long expireAfterAccess, TimeUnit unit,
+                       ScheduledExecutorService scheduler, long cleanupDelay) {
+        this(expireAfterWrite, expireAfterAccess, unit);
+        if (scheduler == null) {
+            throw new NullPointerException("scheduler is null");
+        }
+        if (cleanupDelay <= 0) {
+            throw new IllegalArgumentException("cleanupDelay <= 0");
+        }
+        sweeper(scheduler, unit.toNanos(cleanupDelay)).register(this);
+    }
+
+    /**
+     * 找到线程池上对应清理间隔的清理任务，没有时新建并提交
+     */
+    private static Sweeper sweeper(ScheduledExecutorService scheduler, long delayNanos) {
+        synchronized (SWEEPERS) {
+            Map<Long, Sweeper> byDelay = SWEEPERS.get(scheduler);
+            if (byDelay == null) {
+                byDelay = new HashMap<Long, Sweeper>();
+                SWEEPERS.put(scheduler, byDelay);
+            }
+            Sweeper sweeper = byDelay.get(delayNanos);
+            if (sweeper == null) {
+                //任务被拒绝时线程池只会打印一条信息，提交之前先检查，避免 map 静默地得不到清理
+                if (scheduler.isShutdown()) {
+                    throw new IllegalStateException("scheduler is shut down");
+                }
+                if (scheduler instanceof ScheduledThreadPoolExecutor) {
+                    ScheduledThreadPoolExecutor executor = (ScheduledThreadPoolExecutor) scheduler;
+                    if (executor.getPoolSize() >= executor.getCorePoolSize()) {
+                        throw new IllegalStateException("no free core thread in scheduler for the cleanup task");
+                    }
+                }
+                sweeper = new Sweeper();
+                scheduler.scheduleWithFixedDelay(sweeper, delayNanos, delayNanos, TimeUnit.NANOSECONDS);
+                byDelay.put(delayNanos, sweeper);
+            }
+            return sweeper;
+        }
+    }
+
+    /**
+     * 后台清理任务，依次清理登记过的 map；定时线程池不支持取消任务，没有 map 时任务仍会被调度，但不再做任何事
+     */
+    final static class Sweeper implements Runnable {
+        private final List<WeakReference<ExpiringMap<?, ?>>> maps = new ArrayList<WeakReference<ExpiringMap<?, ?>>>();
+
+        synchronized void register(ExpiringMap<?, ?> map) {
+            maps.add(new WeakReference<ExpiringMap<?, ?>>(map));
+        }
+
+        @Override
+        public void run() {
+            List<ExpiringMap<?, ?>> live = new ArrayList<ExpiringMap<?, ?>>();
+            synchronized (this) {
+                Iterator<WeakReference<ExpiringMap<?, ?>>> it = maps.iterator();
+                while (it.hasNext()) {
+                    ExpiringMap<?, ?> map = it.next().get();
+                    if (map == null || map.closed) {
+                        it.remove();
+                    } else {
+                        live.add(map);
+                    }
+                }
+            }
+            for (ExpiringMap<?, ?> map : live) {
+                try {
+                    map.cleanUp();
+                } catch (RuntimeException e) {
+                    //key 的 equals/hashCode 抛出的异常，不影响其他 map 的清理
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    final static class Entry<K, V> {
+        final K key;
+        V value;
+        /**
+         * 都是相对 base 的纳秒数
+         */
+        long writeNanos;
+        long accessNanos;
+        /**
+         * 当前的过期时间，Long.MAX_VALUE 表示不过期
+         */
+        long deadline;
+        /**
+         * 队列中有效记录的过期时间，其他记录都已经失效；Long.MAX_VALUE 表示队列中没有有效记录
+         */
+        long queuedDeadline = Long.MAX_VALUE;
+        boolean removed;
+
+        Entry(K key) {
+            this.key = key;
+        }
+
+        boolean isExpired(long now) {
+            return now >= deadline;
+        }
+    }
+
+    /**
+     * @return 原来的值，已经过期的值当作不存在
+     */
+    public V put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value is null");
+        }
+        lock.lock();
+        try {
+            long now = now();
+            expire(now);
+            Entry<K, V> entry = data.get(key);
+            V old = null;
+            if (entry == null) {
+                entry = new Entry<K, V>(key);
+                data.put(key, entry);
+            } else {
+                old = entry.value;
+            }
+            entry.value = value;
+            entry.writeNanos = entry.accessNanos = now;
+            schedule(entry, deadline(entry));
+            return old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V get(K key) {
+        lock.lock();
+        try {
+            long now = now();
+            Entry<K, V> entry = live(key, now);
+            if (entry == null) {
+                return null;
+            }
+            if (expireAfterAccessNanos > 0) {
+                entry.accessNanos = now;
+                entry.deadline = deadline(entry);
+            }
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 不会刷新访问时间
+     */
+    public boolean containsKey(K key) {
+        lock.lock();
+        try {
+            return live(key, now()) != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V remove(K key) {
+        lock.lock();
+        try {
+            Entry<K, V> entry = live(key, now());
+            if (entry == null) {
+                return null;
+            }
+            delete(entry);
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 先清理已经过期的元素，再返回元素个数
+     */
+    public int size() {
+        lock.lock();
+        try {
+            expire(now());
+            return data.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清理已经过期的元素，只处理到期的过期记录
+     */
+    public void cleanUp() {
+        lock.lock();
+        try {
+            expire(now());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 因为过期被删除的元素个数
+     */
+    public long expiredCount() {
+        lock.lock();
+        try {
+            return expiredCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 停止后台清理，下一次清理时从清理任务中移除
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * @return 没有过期的元素，已经过期的直接删除
+     */
+    private Entry<K, V> live(K key, long now) {
+        Entry<K, V> entry = data.get(key);
+        if (entry != null && entry.isExpired(now)) {
+            delete(entry);
+            expiredCount++;
+            return null;
+        }
+        return entry;
+    }
+
+    private void delete(Entry<K, V> entry) {
+        data.remove(entry.key);
+        entry.removed = true;
+    }
+
+    /**
+     * 弹出所有到期的过期记录：元素已删除或者记录已失效的直接丢弃；
+     * 元素的过期时间因为访问推后了的，按新的时间放回队列；真正过期的删除
+     */
+    private void expire(long now) {
+        while (!expiries.isEmpty() && now >= expiries.peekKey()) {
+            long deadline = expiries.peekKey();
+            Entry<K, V> entry = expiries.poll();
+            if (entry.removed || deadline != entry.queuedDeadline) {
+                continue;
+            }
+            if (!entry.isExpired(now)) {
+                entry.queuedDeadline = entry.deadline;
+                if (entry.deadline != Long.MAX_VALUE) {
+                    expiries.offer(entry.deadline, entry);
+                }
+                continue;
+            }
+            delete(entry);
+            expiredCount++;
+        }
+    }
+
+    /**
+     * 更新元素的过期时间，只有比队列中的记录更早时才需要放入新记录，更晚的等记录到期时再调整
+     */
+    private void schedule(Entry<K, V> entry, long deadline) {
+        entry.deadline = deadline;
+        if (deadline == Long.MAX_VALUE) {
+            return;
+        }
+        if (deadline < entry.queuedDeadline) {
+            entry.queuedDeadline = deadline;
+            expiries.offer(deadline, entry);
+        }
+    }
+
+    /**
+     * 两种过期时间中先到的一个，都不限制时返回 Long.MAX_VALUE
+     */
+    private long deadline(Entry<K, V> entry) {
+        long deadline = Long.MAX_VALUE;
+        if (expireAfterWriteNanos > 0) {
+            deadline = after(entry.writeNanos, expireAfterWriteNanos);
+        }
+        if (expireAfterAccessNanos > 0) {
+            deadline = Math.min(deadline, after(entry.accessNanos, expireAfterAccessNanos));
+        }
+        return deadline;
+    }
+
+    /**
+     * 当前时间，相对 base 的纳秒数
+     */
+    private long now() {
+        return ticker.getAsLong() - base;
+    }
+
+    /**
+     * time、ttl 都不小于 0，相加溢出时按不过期处理
+     */
+    private static long after(long time, long ttl) {
+        long r = time + ttl;
+        return r < 0 ? Long.MAX_VALUE : r;
+    }
+
+}
@@ -0,0 +1,277 @@
+package com.zcp.util;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：只读哈希表，由 HashMap7.freeze() 创建，基于 CHD（Compress, Hash and Displace）最小完美哈希
+ * 构造时把 n 个不同的 hash 分到约 n/2 个桶里，按桶从大到小为每个桶找一个位移 d，使桶内所有 hash 经过 d 计算出的槽位都空闲且互不相同；
+ * 只有一个 hash 的桶直接放进剩下的空槽，位移记为 -(槽位+1)。最终 n 个 hash 恰好占满 n 个槽位。
+ * 查找：hash → 桶 → 位移 → 槽位，只探测一次，不遍历链表；hashCode 完全相同的 key 无法被完美哈希分开，
+ * 同一个槽位中第一个之后的 key 放在溢出区并串成链。创建之后不可修改，可以被多个线程无锁并发读取
+ * @version:
+ */
+public final class FrozenHashMap<K, V> {
+
+    /**
+     * 平均每个桶的 hash 个数
+     */
+    private final static int BUCKET_LOAD = 2;
+
+    /**
+     * 一个桶尝试的最大位移，超过后换一个种子重新构造
+     */
+    private final static int MAX_DISPLACEMENT = 1 << 20;
+
+    private final long seed;
+
+    /**
+     * 每个桶的位移：0 表示空桶，> 0 为位移，< 0 为 -(槽位+1)
+     */
+    private final int[] displacements;
+
+    /**
+     * 每个槽位的 hash，长度为不同 hash 的个数
+     */
+    private final int[] hashes;
+
+    /**
+     * 前 hashes.length 个是槽位，之后是溢出区
+     */
+    private final Object[] keys;
+    private final Object[] vals;
+
+    /**
+     * hash 相同的下一个 key 在溢出区的下标，0 表示没有；没有相同 hash 时为 null
+     */
+    private final int[] overflow;
+
+    /**
+     * @param hashes 与 HashMap7 相同的扰动后的 hash
+     */
+    FrozenHashMap(int[] hashes, Object[] keys, Object[] vals) {
+        int n = keys.length;
+        //按 hash 排序，相同的 hash 排在一起
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = ((long) hashes[i] << 32) | i;
+        }
+        Arrays.sort(sorted);
+        int m = 0;
+        int[] first = new int[n];//每个不同 hash 在 sorted 中的起始下标
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || (int) (sorted[i] >>> 32) != (int) (sorted[i - 1] >>> 32)) {
+                first[m++] = i;
+            }
+        }
+        int[] distinct = new int[m];
+        for (int g = 0; g < m; g++) {
+            distinct[g] = (int) (sorted[first[g]] >>> 32);
+        }
+
+        long s = 0;
+        int[] slots;
+        int[] disp;
+        while ((slots = place(distinct, s, disp = new int[Math.max(1, (m + BUCKET_LOAD - 1) / BUCKET_LOAD)])) == null) {
+            s++;
+        }
+        this.seed = s;
+        this.displacements = disp;
+
+        this.hashes = new int[m];
+        this.keys = new Object[n];
+        this.vals = new Object[n];
+        int[] chain = n > m ? new int[n] : null;
+        int extra = m;
+        for (int g = 0; g < m; g++) {
+            int slot = slots[g];
+            int end = g + 1 < m ? first[g + 1] : n;
+            this.hashes[slot] = distinct[g];
+            int i = (int) sorted[first[g]];
+            this.keys[slot] = keys[i];
+            this.vals[slot] = vals[i];
+            int pre = slot;
+            for (int j = first[g] + 1; j < end; j++) {
+                i = (int) sorted[j];
+                this.keys[extra] = keys[i];
+                this.vals[extra] = vals[i];
+                chain[pre] = extra;
+                pre = extra++;
+            }
+        }
+        this.overflow = chain;
+    }
+
+    /**
+     * 为每个不同的 hash 分配槽位，位移写入 disp
+     *
+     * @return 每个 hash 的槽位，某个桶找不到位移时返回 null
+     */
+    private static int[] place(int[] distinct, long seed, int[] disp) {
+        int m = distinct.length;
+        int r = disp.length;
+        //按桶分组（计数排序）
+        int[] start = new int[r + 1];
+        for (int h : distinct) {
+            start[bucket(mix(h, seed), r) + 1]++;
+        }
+        int maxSize = 0;
+        for (int b = 0; b < r; b++) {
+            maxSize = Math.max(maxSize, start[b + 1]);
+            start[b + 1] += start[b];
+        }
+        int[] members = new int[m];
+        int[] fill = Arrays.copyOf(start, r);
+        for (int g = 0; g < m; g++) {
+            members[fill[bucket(mix(distinct[g], seed), r)]++] = g;
+        }
+        //桶按大小从大到小排列（计数排序）
+        int[] bySize = new int[maxSize + 2];
+        for (int b = 0; b < r; b++) {
+            bySize[maxSize - (start[b + 1] - start[b]) + 1]++;
+        }
+        for (int i = 0; i <= maxSize; i++) {
+            bySize[i + 1] += bySize[i];
+        }
+        int[] order = new int[r];
+        for (int b = 0; b < r; b++) {
+            order[bySize[maxSize - (start[b + 1] - start[b])]++] = b;
+        }
+
+        int[] slots = new int[m];
+        boolean[] taken = new boolean[m];
+        int[] tmp = new int[maxSize];
+        int nextFree = 0;
+        for (int b : order) {
+            int size = start[b + 1] - start[b];
+            if (size == 0) {
+                break;
+            }
+            if (size == 1) {
+                //单个 hash 的桶直接放进空槽
+                while (taken[nextFree]) {
+                    nextFree++;
+                }
+                int g = members[start[b]];
+                taken[nextFree] = true;
+                slots[g] = nextFree;
+                disp[b] = -(nextFree + 1);
+                continue;
+            }
+            int d = 1;
+            for (; d <= MAX_DISPLACEMENT; d++) {
+                int k = 0;
+                for (; k < size; k++) {
+                    int slot = slot(mix(distinct[members[start[b] + k]], seed), d, m);
+                    if (taken[slot]) {
+                        break;
+                    }
+                    taken[slot] = true;
+                    tmp[k] = slot;
+                }
+                if (k == size) {
+                    break;
+                }
+                //有冲突，撤销这一轮标记的槽位
+                for (int j = 0; j < k; j++) {
+                    taken[tmp[j]] = false;
+                }
+            }
+            if (d > MAX_DISPLACEMENT) {
+                return null;
+            }
+            disp[b] = d;
+            for (int k = 0; k < size; k++) {
+                slots[members[start[b] + k]] = tmp[k];
+            }
+        }
+        return slots;
+    }
+
+    public V get(K key) {
+        if (key == null) {
+            throw new RuntimeException("key is null");
+        }
+        int i = find(key);
+        return i < 0 ? null : (V) vals[i];
+    }
+
+    public V getOrDefault(K key, V defaultValue) {
+        int i = find(key);
+        return i < 0 ? defaultValue : (V) vals[i];
+    }
+
+    public boolean containsKey(K key) {
+        return find(key) >= 0;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            action.accept((K) keys[i], (V) vals[i]);
+        }
+    }
+
+    private int find(Object key) {
+        int h;
+        int hash = (h = key.hashCode()) ^ (h >>> 16);
+        long x = mix(hash, seed);
+        int d = displacements[bucket(x, displacements.length)];
+        if (d == 0) {
+            return -1;
+        }
+        int i = d < 0 ? -d - 1 : slot(x, d, hashes.length);
+        if (hashes[i] != hash) {
+            return -1;
+        }
+        for (; ; ) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+            //溢出区的下标不小于槽位数，0 表示链表结束
+            if (overflow == null || (i = overflow[i]) == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * 桶取 64 位 hash 的高 32 位映射到 [0, r)，用乘法代替取模
+     */
+    private static int bucket(long x, int r) {
+        return (int) (((x >>> 32) * r) >>> 32);
+    }
+
+    /**
+     * 槽位由 hash 加上位移后重新打散得到，与桶的选择相互独立
+     */
+    private static int slot(long x, int d, int m) {
+        return (int) (((fmix64(x + d * 0xC2B2AE3D27D4EB4FL) >>> 32) * m) >>> 32);
+    }
+
+    private static long mix(int hash, long seed) {
+        return fmix64((hash & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L + seed);
+    }
+
+    /**
+     * MurmurHash3 的 64 位 finalizer
+     */
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+}
@@ -1,11 +1,25 @@
 package com.zcp.util;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * @author ：ZCP
  * @date ：2021/9/12
  * @description：java7 hashMap简单实现 数组+单链表
+ * 单个桶的链表长度达到 TREEIFY_THRESHOLD 时转为平衡二叉树（AVL），删除或扩容后节点数不超过 UNTREEIFY_THRESHOLD 再退化回链表，
+ * 这样即使大量 key 的 hashCode 相同，查找也是 O(log n)
+ * 渐进式扩容模式（incremental = true）：扩容时只分配新数组，之后每次 put/remove 顺带迁移少量旧桶，
+ * 避免一次 put 里把几百万个节点全部搬完造成的长时间停顿
+ * keySet、values、entrySet 都是直接遍历桶数组的视图，不复制元素；遍历期间只能通过迭代器的 remove 修改
  * @version:
  */
 public class HashMap7<K, V> {
@@ -22,14 +36,151 @@ public class HashMap7<K, V> {
      */
     private final static float FACTOR = 0.75f;
 
+    /**
+     * 链表长度达到该值时转为树
+     */
+    private final static int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * 树的节点数不超过该值时退化为链表
+     */
+    private final static int UNTREEIFY_THRESHOLD = 6;
+
+    /**
+     * 数组长度小于该值时优先扩容而不是树化，数组小的时候链表长多半是因为该扩容了
+     */
+    private final static int MIN_TREEIFY_CAPACITY = 64;
+
+    /**
+     * 渐进式扩容时每次操作最多迁移的旧桶个数（空桶也计数），保证单次操作的耗时有上界
+     */
+    private final static int MIGRATE_STEP = 4;
+
+    /**
+     * 是否使用渐进式扩容
+     */
+    private final boolean incremental;
+
+    /**
+     * 渐进式扩容过程中的旧数组，不在扩容中时为 null
+     * 旧桶迁移完之后会被置为 null，所以旧桶不为空说明该桶里的 key 还在旧数组中
+     */
+    private Node[] oldArray;
+
+    /**
+     * 旧数组中下一个待迁移的下标
+     */
+    private int migrateIndex;
+
     private int size;
 
+    /**
+     * 结构修改（增删节点、扩容迁移）的次数，迭代器和 Spliterator 据此快速失败
+     */
+    private int modCount;
+
+    /**
+     * 树节点的创建序号，hash 和 compareTo 都相同时用来确定节点在树中的先后
+     */
+    private long treeSeq;
+
+    /**
+     * 扩容次数，以及一次性迁移节点花费的总时间（非渐进式的整体迁移、渐进式扩容中一次性迁移剩余旧桶）；
+     * 渐进式扩容的每一步发生在普通的 put/remove 中，不计时，只累计逐步迁移的非空桶个数
+     */
+    private int resizeCount;
+    private long transferNanos;
+    private long migratedBuckets;
+
     public HashMap7() {
+        this(false);
+    }
+
+    /**
+     * @param incremental 是否使用渐进式扩容
+     */
+    public HashMap7(boolean incremental) {
         this.array = new Node[INIT_ARRAY_SIZE];
+        this.incremental = incremental;
+        size = 0;
+    }
+
+    /**
+     * @param capacity 预计存放的元素个数，放入这么多元素之前不会扩容
+     */
+    public HashMap7(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * @param capacity    预计存放的元素个数，放入这么多元素之前不会扩容
+     * @param incremental 是否使用渐进式扩容
+     */
+    public HashMap7(int capacity, boolean incremental) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        this.array = new Node[tableSizeFor((int) Math.min(Math.ceil(capacity / FACTOR), 1 << 30))];
+        this.incremental = incremental;
         size = 0;
     }
 
-    public final static class Node<K, V> {
+    /**
+     * 并行构造，key 相同时后面的元素覆盖前面的
+     *
+     * @see #parallelBuild(Stream, Function, Function)
+     */
+    public static <K, V> HashMap7<K, V> parallelBuild(Collection<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        Object[] items = entries.toArray();
+        return parallelBuild(items, e -> ((Map.Entry<K, V>) e).getKey(), e -> ((Map.Entry<K, V>) e).getValue());
+    }
+
+    /**
+     * 并行构造：按元素个数一次分配好数组，不会扩容
+     * 1.并行计算每个元素的 key、value 和 hash
+     * 2.在 ForkJoinPool.commonPool() 上从桶下标的最高位开始逐位把元素稳定地分成两半，分到不同子任务的元素一定落在不同的桶，
+     * 每个子任务直接把自己的元素放进桶数组，互不干扰，不需要加锁，也不需要最后合并
+     * 3.分区是稳定的，同一个 key 的元素保持原来的先后顺序，所以后面的元素覆盖前面的，与按顺序 put 的结果相同
+     */
+    public static <T, K, V> HashMap7<K, V> parallelBuild(Stream<? extends T> stream,
+                                                         Function<? super T, ? extends K> keyMapper,
+                                                         Function<? super T, ? extends V> valueMapper) {
+        Object[] items = stream.toArray();
+        return parallelBuild(items, (Function<Object, K>) keyMapper, (Function<Object, V>) valueMapper);
+    }
+
+    private static <K, V> HashMap7<K, V> parallelBuild(Object[] items, Function<Object, ? extends K> keyMapper,
+                                                       Function<Object, ? extends V> valueMapper) {
+        int n = items.length;
+        HashMap7<K, V> map = new HashMap7<K, V>(n);
+        Object[] keys = new Object[n];
+        Object[] vals = new Object[n];
+        int[] hashes = new int[n];
+        int[] order = new int[n];
+        Arrays.parallelSetAll(order, i -> {
+            Object key = keyMapper.apply(items[i]);
+            if (key == null) {
+                throw new NullPointerException("key is null");
+            }
+            keys[i] = key;
+            vals[i] = valueMapper.apply(items[i]);
+            hashes[i] = map.hash(key);
+            return i;
+        });
+        int topBit = 31 - Integer.numberOfLeadingZeros(map.array.length) - 1;
+        int batch = Math.max(1024, n / (ForkJoinPool.getCommonPoolParallelism() << 2));
+        ConcurrentLinkedQueue<Integer> longBins = new ConcurrentLinkedQueue<Integer>();
+        map.size = ForkJoinPool.commonPool().invoke(
+                new BuildTask<K, V>(map.array, keys, vals, hashes, order, new int[n], 0, n, topBit, batch, longBins));
+        if (map.array.length >= MIN_TREEIFY_CAPACITY) {
+            for (Integer index : longBins) {
+                map.treeify(map.array, index);
+            }
+        }
+        return map;
+    }
+
+    public static class Node<K, V> implements Map.Entry<K, V> {
         int hash;
         K key;
         V val;
@@ -40,100 +191,543 @@ public class HashMap7<K, V> {
             this.key = key;
             this.val = val;
         }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return val;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = val;
+            val = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(val, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(val);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + val;
+        }
     }
 
-    public final static class Values<V> extends AbstractCollection<V> {
+    /**
+     * 树化之后的节点
+     * 桶中存放的是树根，树根同时也是 next 链表的第一个节点，所以只按 next 遍历的代码（values、keySet、扩容）不需要区分链表和树
+     */
+    final static class TreeNode<K, V> extends Node<K, V> {
+        TreeNode<K, V> left;
+        TreeNode<K, V> right;
         /**
-         * 此处迭代器留给你们实现吧  嘿嘿、
-         * @return
+         * 链表中的前一个节点，删除时 O(1) 摘除
          */
+        TreeNode<K, V> prev;
+        int height = 1;
+        final long seq;
+
+        TreeNode(int hash, K key, V val, long seq) {
+            super(hash, key, val);
+            this.seq = seq;
+        }
+    }
+
+    public final class Values extends AbstractCollection<V> {
+
+        @Override
         public Iterator<V> iterator() {
-            return null;
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return new HashSpliterator<V>(e -> e.val, 0);
+        }
+    }
+
+    public final class KeySet extends AbstractSet<K> {
+
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o != null && get(hash(o), o) != null;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o != null && removeNode(hash(o), o, true) != null;
+        }
+
+        @Override
+        public Spliterator<K> spliterator() {
+            return new HashSpliterator<K>(e -> e.key, Spliterator.DISTINCT | Spliterator.NONNULL);
+        }
+    }
+
+    public final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
         }
 
+        @Override
         public int size() {
-            return size();
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry) || ((Map.Entry<?, ?>) o).getKey() == null) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Node<K, V> node = get(hash(e.getKey()), e.getKey());
+            return node != null && node.equals(e);
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K, V>> spliterator() {
+            return new HashSpliterator<Map.Entry<K, V>>(e -> e, Spliterator.DISTINCT | Spliterator.NONNULL);
         }
     }
 
     public void put(K key, V val) {
-        int length = array.length;
-        int index = hash(key) & (length - 1);
-        Node head = array[index];
-        if (head == null) {
-            Node<K, V> node = new Node<K, V>(hash(key), key, val);
-            node.next = null;
-            array[index] = node;
-            size++;
+        putVal(hash(key), key, val, false);
+    }
+
+    /**
+     * key 不存在（或对应的值为 null）时才放入
+     *
+     * @return 原来的值
+     */
+    public V putIfAbsent(K key, V val) {
+        return putVal(hash(key), key, val, true);
+    }
+
+    /**
+     * @return key 对应的值，不存在时返回 defaultValue
+     */
+    public V getOrDefault(K key, V defaultValue) {
+        if (key == null) {
+            throw new RuntimeException("key is null");
+        }
+        Node<K, V> node = get(hash(key), key);
+        return node == null ? defaultValue : node.val;
+    }
+
+    /**
+     * key 不存在（或对应的值为 null）时用 mappingFunction 计算值并放入，结果为 null 时不放入
+     * mappingFunction 中不能修改当前 map，否则抛出 ConcurrentModificationException
+     *
+     * @return 当前的值
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (mappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int hash = hash(key);
+        WriteProbe<K, V> probe = findForWrite(hash, key);
+        Node<K, V> node = probe.node;
+        if (node != null && node.val != null) {
+            return node.val;
+        }
+        int mc = modCount;
+        V v = mappingFunction.apply(key);
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (v == null) {
+            return null;
+        }
+        if (node != null) {
+            node.val = v;
+        } else {
+            addNode(hash, key, v, probe.binCount);
+        }
+        return v;
+    }
+
+    /**
+     * key 存在且值不为 null 时用 remappingFunction 计算新值，新值为 null 时删除 key
+     * remappingFunction 中不能修改当前 map，否则抛出 ConcurrentModificationException
+     *
+     * @return 新值
+     */
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int hash = hash(key);
+        WriteProbe<K, V> probe = findForWrite(hash, key);
+        Node<K, V> node = probe.node;
+        if (node == null || node.val == null) {
+            return null;
+        }
+        int mc = modCount;
+        V v = remappingFunction.apply(key, node.val);
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (v == null) {
+            unlink(probe);
+        } else {
+            node.val = v;
+        }
+        return v;
+    }
+
+    /**
+     * key 不存在（或对应的值为 null）时放入 value，否则放入 remappingFunction(旧值, value)，结果为 null 时删除 key
+     * 计数聚合可以写成 merge(key, 1, Integer::sum)，只需要一次 hash 和一次遍历
+     * remappingFunction 中不能修改当前 map，否则抛出 ConcurrentModificationException
+     *
+     * @return 新值
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int hash = hash(key);
+        WriteProbe<K, V> probe = findForWrite(hash, key);
+        Node<K, V> node = probe.node;
+        if (node == null) {
+            addNode(hash, key, value, probe.binCount);
+            return value;
+        }
+        if (node.val == null) {
+            node.val = value;
+            return value;
+        }
+        int mc = modCount;
+        V v = remappingFunction.apply(node.val, value);
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (v == null) {
+            unlink(probe);
         } else {
-            //检查是否可以扩容了
-            if (size > array.length * FACTOR) {
-                transfer();//扩容
-            }
-            //先检索一边链表，是否已经存在Key
-            Node findNode = get(hash(key),key);
-            if (findNode != null) {
-                //已存在直接 修改值
+            node.val = v;
+        }
+        return v;
+    }
+
+    private V putVal(int hash, K key, V val, boolean onlyIfAbsent) {
+        WriteProbe<K, V> probe = findForWrite(hash, key);
+        Node<K, V> findNode = probe.node;
+        if (findNode != null) {
+            //已存在直接 修改值
+            V old = findNode.val;
+            if (!onlyIfAbsent || old == null) {
                 findNode.val = val;
+            }
+            return old;
+        }
+        addNode(hash, key, val, probe.binCount);
+        return null;
+    }
+
+    /**
+     * findForWrite 的结果，只在一次写操作内使用
+     */
+    final static class WriteProbe<K, V> {
+        /**
+         * 找到的节点，没找到时为 null
+         */
+        Node<K, V> node;
+        /**
+         * 链表中 node 的前一个节点，node 是头节点或者在树桶中时为 null
+         */
+        Node<K, V> pre;
+        int index;
+        /**
+         * 没找到时桶中链表的长度
+         */
+        int binCount;
+    }
+
+    /**
+     * 写操作之前的查找：渐进式扩容时先迁移 key 所在的旧桶，保证 key 只会在 array 中；
+     * 找到时记下前一个节点，删除时直接摘除；没找到时记下链表长度，插入时据此判断是否树化，都不需要再遍历一次
+     */
+    private WriteProbe<K, V> findForWrite(int hash, Object key) {
+        if (oldArray != null) {
+            migrate(hash);
+        }
+        WriteProbe<K, V> probe = new WriteProbe<K, V>();
+        int index = hash & (array.length - 1);
+        probe.index = index;
+        Node<K, V> head = array[index];
+        if (head instanceof TreeNode) {
+            probe.node = findTreeNode((TreeNode<K, V>) head, hash, key);
+            return probe;
+        }
+        int binCount = 0;
+        for (Node<K, V> e = head, pre = null; e != null; pre = e, e = e.next, binCount++) {
+            if (e.hash == hash && e.key.equals(key)) {
+                probe.node = e;
+                probe.pre = pre;
+                return probe;
+            }
+        }
+        probe.binCount = binCount;
+        return probe;
+    }
+
+    /**
+     * 删除 findForWrite 找到的节点，调用之前 map 不能有结构修改
+     */
+    private void unlink(WriteProbe<K, V> probe) {
+        Node<K, V> node = probe.node;
+        if (node instanceof TreeNode) {
+            removeTreeNode(array, probe.index, (TreeNode<K, V>) node, true);
+        } else {
+            if (probe.pre == null) {
+                array[probe.index] = node.next;
             } else {
-                //不存在，插入新的节点
-                Node<K, V> newNode = new Node<K, V>(hash(key), key, val);
-                index = hash(key) & (array.length - 1);
-                head = array[index];
-                if (head != null) {
-                    newNode.next = head;
-                }
-                array[index] = newNode;
-                size++;
+                probe.pre.next = node.next;
             }
+            node.next = null;
         }
+        size--;
+        modCount++;
+    }
 
+    /**
+     * 插入一个确定不存在的 key
+     *
+     * @param binCount findForWrite 得到的链表长度
+     */
+    private void addNode(int hash, K key, V val, int binCount) {
+        int index = hash & (array.length - 1);
+        Node<K, V> head = array[index];
+        if (head == null) {
+            array[index] = new Node<K, V>(hash, key, val);
+            size++;
+            modCount++;
+            return;
+        }
+        //检查是否可以扩容了
+        if (size > array.length * FACTOR) {
+            resize();//扩容
+            if (oldArray != null) {
+                migrate(hash);
+            }
+            index = hash & (array.length - 1);
+            head = array[index];
+            binCount = 0;
+            for (Node<K, V> e = head; e != null && !(e instanceof TreeNode); e = e.next) {
+                binCount++;
+            }
+        }
+        //不存在，插入新的节点
+        if (head instanceof TreeNode) {
+            putTreeVal(array, index, hash, key, val);
+        } else {
+            Node<K, V> newNode = new Node<K, V>(hash, key, val);
+            newNode.next = head;
+            array[index] = newNode;
+            if (binCount + 1 >= TREEIFY_THRESHOLD) {
+                treeifyBin(index);
+            }
+        }
+        size++;
+        modCount++;
     }
 
+    /**
+     * value 视图，不复制元素
+     */
     public Collection<V> values() {
-        Values<V> vs = new Values<V>();
-        for (int i = 0; i < array.length; i++) {
-            Node<K, V> head = array[i];
-            while (head != null) {
-                vs.add(head.val);
-                head = head.next;
+        return new Values();
+    }
+
+    /**
+     * key 视图，不复制元素，删除会作用到 map 上
+     */
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    /**
+     * 节点视图，Map.Entry 就是桶里的节点，setValue 会直接修改 map
+     */
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    /**
+     * 当前存放节点的数组，渐进式扩容过程中包括旧数组
+     */
+    private Node<K, V>[][] tables() {
+        return oldArray == null ? new Node[][]{array} : new Node[][]{oldArray, array};
+    }
+
+    /**
+     * 扩容：渐进式模式下只分配新数组，否则一次性迁移
+     */
+    private void resize() {
+        resizeCount++;
+        modCount++;
+        if (!incremental) {
+            transfer();
+            return;
+        }
+        if (oldArray != null) {
+            //上一次扩容还没有迁移完（一般不会发生），先一次性迁移完
+            completeMigration();
+        }
+        oldArray = array;
+        array = new Node[array.length << 1];
+        migrateIndex = 0;
+    }
+
+    /**
+     * 渐进式扩容的一步：先迁移 hash 所在的旧桶，保证接下来对该 key 的修改只需要操作新数组，
+     * 再从 migrateIndex 开始顺序迁移最多 MIGRATE_STEP 个旧桶
+     */
+    private void migrate(int hash) {
+        Node<K, V>[] old = oldArray;
+        int i = hash & (old.length - 1);
+        boolean moved = false;
+        if (old[i] != null) {
+            transferBucket(old, i, array);
+            old[i] = null;
+            migratedBuckets++;
+            moved = true;
+        }
+        int end = Math.min(migrateIndex + MIGRATE_STEP, old.length);
+        for (i = migrateIndex; i < end; i++) {
+            if (old[i] != null) {
+                transferBucket(old, i, array);
+                old[i] = null;
+                migratedBuckets++;
+                moved = true;
             }
         }
-        return vs;
+        migrateIndex = end;
+        if (moved || end == old.length) {
+            //节点换了数组，正在进行的遍历会漏掉或重复
+            modCount++;
+        }
+        if (end == old.length) {
+            oldArray = null;
+        }
     }
 
-    public Set<K> keySet() {
-        HashSet<K> vs = new HashSet<K>();
-        for (int i = 0; i < array.length; i++) {
-            Node<K, V> head = array[i];
-            while (head != null) {
-                vs.add(head.key);
-                head = head.next;
+    /**
+     * 把剩下的旧桶全部迁移完
+     */
+    private void completeMigration() {
+        long start = System.nanoTime();
+        Node<K, V>[] old = oldArray;
+        for (int i = migrateIndex; i < old.length; i++) {
+            if (old[i] != null) {
+                transferBucket(old, i, array);
+                old[i] = null;
             }
         }
-        return vs;
+        oldArray = null;
+        modCount++;
+        transferNanos += System.nanoTime() - start;
     }
 
     /**
-     * 将原来的数组扩容成2倍，并且重新计算hash
+     * 将原来的数组扩容成2倍
+     * 数组长度是 2 的幂，旧桶 i 中的节点在新数组中只会落在 i 或 i + oldCap，根据 hash & oldCap 拆成高低两条链表即可，
+     * hash 已经缓存在节点上，不需要重新计算
      */
     private void transfer() {
-        Node<K, V>[] newArray = new Node[array.length << 1];
-        for (int i = 0; i < array.length; i++) {
-            Node head = array[i];
-            while (head != null) {
-                Node next = head.next;
-                head.next = null;
-                int index = hash(head.key) & (newArray.length - 1);
-                Node<K, V> cur = newArray[index];
-                if (cur != null) {
-                    head.next = cur;
+        if (oldArray != null) {
+            completeMigration();
+        }
+        long start = System.nanoTime();
+        Node<K, V>[] old = array;
+        Node<K, V>[] newArray = new Node[old.length << 1];
+        for (int i = 0; i < old.length; i++) {
+            transferBucket(old, i, newArray);
+            old[i] = null;
+        }
+        array = newArray;
+        transferNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * 把旧数组第 i 个桶拆分到新数组中，保持链表中节点的相对顺序
+     */
+    private void transferBucket(Node<K, V>[] oldArray, int i, Node<K, V>[] newArray) {
+        Node<K, V> head = oldArray[i];
+        if (head == null) {
+            return;
+        }
+        int oldCap = oldArray.length;
+        Node<K, V> loHead = null, loTail = null, hiHead = null, hiTail = null;
+        int loCount = 0, hiCount = 0;
+        boolean tree = head instanceof TreeNode;
+        for (Node<K, V> e = head, next; e != null; e = next) {
+            next = e.next;
+            //树节点拆开后先按普通节点处理，节点数够多再重新树化
+            Node<K, V> node = tree ? new Node<K, V>(e.hash, e.key, e.val) : e;
+            node.next = null;
+            if ((e.hash & oldCap) == 0) {
+                if (loTail == null) {
+                    loHead = node;
+                } else {
+                    loTail.next = node;
                 }
-                newArray[index] = head;
-                head = next;
+                loTail = node;
+                loCount++;
+            } else {
+                if (hiTail == null) {
+                    hiHead = node;
+                } else {
+                    hiTail.next = node;
+                }
+                hiTail = node;
+                hiCount++;
+            }
+        }
+        newArray[i] = loHead;
+        newArray[i + oldCap] = hiHead;
+        if (tree) {
+            if (loCount > UNTREEIFY_THRESHOLD) {
+                treeify(newArray, i);
+            }
+            if (hiCount > UNTREEIFY_THRESHOLD) {
+                treeify(newArray, i + oldCap);
             }
         }
-        array = newArray;
     }
 
     public V get(K key) {
@@ -149,34 +743,58 @@ public class HashMap7<K, V> {
     }
 
     public V remove(K key) {
-        if (!containsKey(key)) {
-            return null;
-        } else {
-            int length = array.length;
-            int index = hash(key) & (length - 1);
-            Node<K, V> node = array[index];
-            Node pre = null;
-            Node<K, V> find = null;
-            while (node != null) {
-                if (node.hash == hash(key) && node.key.equals(key)) {
-                    if (pre != null) {
-                        pre.next = node.next;
-                    } else {
-                        //删除头节点
-                        array[index] = node.next;
-                    }
-                    node.next = null;
-                    size--;
-                    return node.val;
-                }
-                pre = node;
-                node = node.next;
-            }
+        int hash = hash(key);
+        if (oldArray != null) {
+            migrate(hash);
         }
-        return null;
+        Node<K, V> node = removeNode(hash, key, true);
+        return node == null ? null : node.val;
     }
 
-    public boolean containsKey(K key) {
+    /**
+     * 删除节点，不做渐进式迁移
+     *
+     * @param movable false 表示来自迭代器，树桶不退化成链表，避免正在遍历的节点被替换
+     * @return 被删除的节点
+     */
+    private Node<K, V> removeNode(int hash, Object key, boolean movable) {
+        Node<K, V>[] tab = array;
+        if (oldArray != null && oldArray[hash & (oldArray.length - 1)] != null) {
+            tab = oldArray;
+        }
+        int index = hash & (tab.length - 1);
+        Node<K, V> node = tab[index];
+        if (node instanceof TreeNode) {
+            TreeNode<K, V> find = findTreeNode((TreeNode<K, V>) node, hash, key);
+            if (find == null) {
+                return null;
+            }
+            removeTreeNode(tab, index, find, movable);
+            size--;
+            modCount++;
+            return find;
+        }
+        Node<K, V> pre = null;
+        while (node != null) {
+            if (node.hash == hash && node.key.equals(key)) {
+                if (pre != null) {
+                    pre.next = node.next;
+                } else {
+                    //删除头节点
+                    tab[index] = node.next;
+                }
+                node.next = null;
+                size--;
+                modCount++;
+                return node;
+            }
+            pre = node;
+            node = node.next;
+        }
+        return null;
+    }
+
+    public boolean containsKey(K key) {
         int hash = hash(key);
         return get(hash,key) != null;
     }
@@ -186,13 +804,19 @@ public class HashMap7<K, V> {
      * @param hash
      * @return
      */
-    private Node get(int hash,K key) {
-        int length = array.length;
-        int index = hash & (length - 1);
-        Node node = array[index];
+    private Node<K, V> get(int hash, Object key) {
+        Node<K, V>[] tab = array;
+        if (oldArray != null && oldArray[hash & (oldArray.length - 1)] != null) {
+            //旧桶还没有迁移，key 只可能在旧数组中；读操作不做迁移
+            tab = oldArray;
+        }
+        Node<K, V> node = tab[hash & (tab.length - 1)];
         if (node == null) {
             return null;
         }
+        if (node instanceof TreeNode) {
+            return findTreeNode((TreeNode<K, V>) node, hash, key);
+        }
         while (node != null) {
             if (node.hash == hash && node.key.equals(key)) {
                 return node;
@@ -202,6 +826,965 @@ public class HashMap7<K, V> {
         return null;
     }
 
+    /**
+     * 按顺序遍历所有的桶，渐进式扩容过程中先遍历旧数组再遍历新数组
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Node<K, V>[] tab : tables()) {
+            for (int i = 0; i < tab.length; i++) {
+                for (Node<K, V> e = tab[i]; e != null; e = e.next) {
+                    action.accept(e.key, e.val);
+                }
+            }
+        }
+    }
+
+    /**
+     * 统计当前的桶分布，需要遍历所有的桶，只在调用时计算；平时的读写只在扩容时计数和计时，渐进式迁移的每一步只累加一个计数
+     */
+    public Stats stats() {
+        int maxChain = 0;
+        int[] histogram = new int[TREEIFY_THRESHOLD + 1];
+        int nonEmpty = 0, treeBins = 0, buckets = 0;
+        long bytes = 0;
+        for (Node<K, V>[] tab : tables()) {
+            buckets += tab.length;
+            bytes += Stats.ARRAY_HEADER + (long) Stats.REFERENCE * tab.length;
+            for (Node<K, V> head : tab) {
+                int count = 0;
+                for (Node<K, V> e = head; e != null; e = e.next) {
+                    count++;
+                }
+                if (count > 0) {
+                    nonEmpty++;
+                }
+                if (head instanceof TreeNode) {
+                    treeBins++;
+                    bytes += (long) Stats.TREE_NODE * count;
+                } else {
+                    bytes += (long) Stats.NODE * count;
+                }
+                if (count >= histogram.length) {
+                    histogram = Arrays.copyOf(histogram, count + 1);
+                }
+                histogram[count]++;
+                maxChain = Math.max(maxChain, count);
+            }
+        }
+        return new Stats(size, buckets, Arrays.copyOf(histogram, Math.max(maxChain + 1, 2)), maxChain,
+                nonEmpty == 0 ? 0d : (double) size / nonEmpty, treeBins, resizeCount, transferNanos, migratedBuckets, Stats.MAP + bytes);
+    }
+
+    /**
+     * HashMap7 的桶分布和扩容统计，由 stats() 创建，之后不会随 map 变化
+     */
+    public static final class Stats {
+
+        /**
+         * 估算内存时按 64 位 JVM、开启压缩指针计算，对象按 8 字节对齐；不包括 key、value 本身
+         */
+        final static int REFERENCE = 4;
+        final static int ARRAY_HEADER = 16;
+        final static int NODE = 32;
+        final static int TREE_NODE = 56;
+        final static int MAP = 56;
+
+        private final int size;
+        private final int bucketCount;
+        private final int[] histogram;
+        private final int maxChainLength;
+        private final double meanChainLength;
+        private final int treeBinCount;
+        private final int resizeCount;
+        private final long transferNanos;
+        private final long migratedBuckets;
+        private final long estimatedBytes;
+
+        Stats(int size, int bucketCount, int[] histogram, int maxChainLength, double meanChainLength,
+              int treeBinCount, int resizeCount, long transferNanos, long migratedBuckets, long estimatedBytes) {
+            this.size = size;
+            this.bucketCount = bucketCount;
+            this.histogram = histogram;
+            this.maxChainLength = maxChainLength;
+            this.meanChainLength = meanChainLength;
+            this.treeBinCount = treeBinCount;
+            this.resizeCount = resizeCount;
+            this.transferNanos = transferNanos;
+            this.migratedBuckets = migratedBuckets;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 桶的总数，渐进式扩容过程中是旧数组和新数组长度之和
+         */
+        public int bucketCount() {
+            return bucketCount;
+        }
+
+        /**
+         * 实际负载：元素个数 / 桶数
+         */
+        public double load() {
+            return (double) size / bucketCount;
+        }
+
+        /**
+         * 桶中元素个数的分布：histogram[i] 为恰好有 i 个元素的桶数，树化的桶按节点数计
+         */
+        public int[] histogram() {
+            return histogram.clone();
+        }
+
+        public int maxChainLength() {
+            return maxChainLength;
+        }
+
+        /**
+         * 非空桶的平均元素个数，也就是查找一个存在的 key 时平均要面对的链表长度
+         */
+        public double meanChainLength() {
+            return meanChainLength;
+        }
+
+        public int treeBinCount() {
+            return treeBinCount;
+        }
+
+        public int resizeCount() {
+            return resizeCount;
+        }
+
+        /**
+         * 一次性迁移节点花费的总时间，单位纳秒；渐进式扩容中逐步迁移的部分不计时，见 migratedBuckets()
+         */
+        public long transferNanos() {
+            return transferNanos;
+        }
+
+        /**
+         * 渐进式扩容中随 put/remove 逐步迁移的非空桶个数
+         */
+        public long migratedBuckets() {
+            return migratedBuckets;
+        }
+
+        /**
+         * 估算的 map 自身占用的字节数：map 对象 + 桶数组 + 所有节点，不包括 key、value 本身
+         */
+        public long estimatedBytes() {
+            return estimatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{size=" + size + ", bucketCount=" + bucketCount + ", histogram=" + Arrays.toString(histogram)
+                    + ", maxChainLength=" + maxChainLength + ", meanChainLength=" + meanChainLength
+                    + ", treeBinCount=" + treeBinCount + ", resizeCount=" + resizeCount
+                    + ", transferNanos=" + transferNanos + ", migratedBuckets=" + migratedBuckets
+                    + ", estimatedBytes=" + estimatedBytes + "}";
+        }
+    }
+
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * 从快照恢复时使用：按快照中记录的 hash 直接挂到桶上，不调用 hashCode()、不检查 key 是否重复、不扩容，
+     * 调用方需要先按元素个数预设好容量，全部放完之后调用 restoreDone()
+     */
+    void restoreNode(int hash, K key, V val) {
+        int index = hash & (array.length - 1);
+        Node<K, V> node = new Node<K, V>(hash, key, val);
+        node.next = array[index];
+        array[index] = node;
+        size++;
+    }
+
+    /**
+     * 快照恢复完成：链表长度达到 TREEIFY_THRESHOLD 的桶转为树
+     */
+    void restoreDone() {
+        if (array.length < MIN_TREEIFY_CAPACITY) {
+            return;
+        }
+        for (int i = 0; i < array.length; i++) {
+            int count = 0;
+            for (Node<K, V> e = array[i]; e != null && count < TREEIFY_THRESHOLD; e = e.next) {
+                count++;
+            }
+            if (count >= TREEIFY_THRESHOLD) {
+                treeify(array, i);
+            }
+        }
+    }
+
+    /**
+     * 冻结成只读的 FrozenHashMap：基于最小完美哈希，查找只探测一次，适合构造一次之后大量读取的场景
+     * 之后对当前 map 的修改不会反映到返回的 map 中
+     */
+    public FrozenHashMap<K, V> freeze() {
+        int[] hashes = new int[size];
+        Object[] keys = new Object[size];
+        Object[] vals = new Object[size];
+        int i = 0;
+        for (Node<K, V>[] tab : tables()) {
+            for (Node<K, V> head : tab) {
+                for (Node<K, V> e = head; e != null; e = e.next) {
+                    hashes[i] = e.hash;
+                    keys[i] = e.key;
+                    vals[i++] = e.val;
+                }
+            }
+        }
+        return new FrozenHashMap<K, V>(hashes, keys, vals);
+    }
+
+    /**
+     * 并行遍历，元素个数不少于 parallelismThreshold 时在 ForkJoinPool.commonPool() 上按桶区间拆分执行
+     *
+     * @param parallelismThreshold 每个子任务大约处理的元素个数，Long.MAX_VALUE 表示串行
+     */
+    public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        ForkJoinPool.commonPool().invoke(new ForEachTask<K, V>(oldArray, array, 0, bucketCount(), batch(parallelismThreshold), action));
+    }
+
+    /**
+     * 并行归约，transformer 返回 null 的元素会被忽略
+     *
+     * @return 所有元素都被忽略时返回 null
+     */
+    public <U> U reduce(long parallelismThreshold,
+                        BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        if (transformer == null || reducer == null) {
+            throw new NullPointerException();
+        }
+        return ForkJoinPool.commonPool().invoke(
+                new ReduceTask<K, V, U>(oldArray, array, 0, bucketCount(), batch(parallelismThreshold), transformer, reducer));
+    }
+
+    /**
+     * 并行查找，返回任意一个使 searchFunction 返回非 null 的结果，找到之后其他子任务会尽快结束
+     */
+    public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        if (searchFunction == null) {
+            throw new NullPointerException();
+        }
+        AtomicReference<U> result = new AtomicReference<U>();
+        ForkJoinPool.commonPool().invoke(
+                new SearchTask<K, V, U>(oldArray, array, 0, bucketCount(), batch(parallelismThreshold), searchFunction, result));
+        return result.get();
+    }
+
+    /**
+     * 桶的总数，渐进式扩容过程中是旧数组和新数组长度之和
+     */
+    private int bucketCount() {
+        return (oldArray == null ? 0 : oldArray.length) + array.length;
+    }
+
+    /**
+     * 每个子任务处理的桶个数，使每个子任务大约处理 parallelismThreshold 个元素
+     */
+    private int batch(long parallelismThreshold) {
+        int buckets = bucketCount();
+        if (size <= parallelismThreshold) {
+            return buckets;
+        }
+        return (int) Math.max(1L, (long) ((double) buckets * parallelismThreshold / size));
+    }
+
+    /**
+     * 把新旧两个数组看成首尾相连的一个数组，取第 i 个桶
+     */
+    private static <K, V> Node<K, V> bucketAt(Node<K, V>[] old, Node<K, V>[] cur, int i) {
+        if (old != null) {
+            if (i < old.length) {
+                return old[i];
+            }
+            i -= old.length;
+        }
+        return cur[i];
+    }
+
+    abstract class HashIterator {
+        final Node<K, V>[] old = oldArray;
+        final Node<K, V>[] cur = array;
+        final int fence = bucketCount();
+        int expectedModCount = modCount;
+        int index;
+        Node<K, V> next;
+        Node<K, V> current;
+        /**
+         * 树桶在删除时会调整链表顺序，所以进入树桶时先把节点拷贝出来再遍历
+         */
+        Node<K, V>[] treeBuf;
+        int treePos;
+        int treeLen;
+
+        HashIterator() {
+            next = nextBucket();
+        }
+
+        public final boolean hasNext() {
+            return next != null;
+        }
+
+        final Node<K, V> nextNode() {
+            Node<K, V> e = next;
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            current = e;
+            if (treeLen > 0) {
+                if (treePos < treeLen) {
+                    next = treeBuf[treePos++];
+                    return e;
+                }
+                treeLen = 0;
+            } else if (e.next != null) {
+                next = e.next;
+                return e;
+            }
+            next = nextBucket();
+            return e;
+        }
+
+        private Node<K, V> nextBucket() {
+            while (index < fence) {
+                Node<K, V> head = bucketAt(old, cur, index++);
+                if (head instanceof TreeNode) {
+                    int n = 0;
+                    for (Node<K, V> e = head; e != null; e = e.next) {
+                        if (treeBuf == null || n == treeBuf.length) {
+                            treeBuf = treeBuf == null ? new Node[TREEIFY_THRESHOLD << 1] : Arrays.copyOf(treeBuf, n << 1);
+                        }
+                        treeBuf[n++] = e;
+                    }
+                    treeLen = n;
+                    treePos = 1;
+                    return head;
+                }
+                if (head != null) {
+                    return head;
+                }
+            }
+            return null;
+        }
+
+        public final void remove() {
+            Node<K, V> e = current;
+            if (e == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            current = null;
+            removeNode(e.hash, e.key, false);
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends HashIterator implements Iterator<K> {
+        @Override
+        public K next() {
+            return nextNode().key;
+        }
+    }
+
+    final class ValueIterator extends HashIterator implements Iterator<V> {
+        @Override
+        public V next() {
+            return nextNode().val;
+        }
+    }
+
+    final class EntryIterator extends HashIterator implements Iterator<Map.Entry<K, V>> {
+        @Override
+        public Map.Entry<K, V> next() {
+            return nextNode();
+        }
+    }
+
+    /**
+     * 按桶区间拆分的 Spliterator，拆分时把剩余的桶区间一分为二
+     */
+    final class HashSpliterator<T> implements Spliterator<T> {
+        final Node<K, V>[] old;
+        final Node<K, V>[] cur;
+        final Function<Node<K, V>, T> mapper;
+        final int characteristics;
+        final int expectedModCount;
+        int index;
+        int fence;
+        long est;
+        Node<K, V> current;
+
+        HashSpliterator(Function<Node<K, V>, T> mapper, int characteristics) {
+            this(oldArray, array, 0, bucketCount(), size, modCount, mapper, characteristics);
+        }
+
+        HashSpliterator(Node<K, V>[] old, Node<K, V>[] cur, int index, int fence, long est, int expectedModCount,
+                        Function<Node<K, V>, T> mapper, int characteristics) {
+            this.expectedModCount = expectedModCount;
+            this.old = old;
+            this.cur = cur;
+            this.index = index;
+            this.fence = fence;
+            this.est = est;
+            this.mapper = mapper;
+            this.characteristics = characteristics;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            for (; ; ) {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (current != null) {
+                    Node<K, V> e = current;
+                    current = e.next;
+                    action.accept(mapper.apply(e));
+                    return true;
+                }
+                if (index >= fence) {
+                    return false;
+                }
+                current = bucketAt(old, cur, index++);
+            }
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            for (Node<K, V> e = current; e != null; e = e.next) {
+                action.accept(mapper.apply(e));
+            }
+            current = null;
+            for (; index < fence; index++) {
+                for (Node<K, V> e = bucketAt(old, cur, index); e != null; e = e.next) {
+                    action.accept(mapper.apply(e));
+                }
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            if (lo >= mid || current != null) {
+                return null;
+            }
+            index = mid;
+            return new HashSpliterator<T>(old, cur, lo, mid, est >>>= 1, expectedModCount, mapper, characteristics);
+        }
+
+        @Override
+        public long estimateSize() {
+            return est;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+
+    /**
+     * 并行批量操作的公共部分：桶区间大于 batch 时一分为二
+     */
+    abstract static class BulkTask<K, V, R> extends RecursiveTask<R> {
+        private final static long serialVersionUID = 1L;
+
+        final Node<K, V>[] old;
+        final Node<K, V>[] cur;
+        final int lo;
+        final int hi;
+        final int batch;
+
+        BulkTask(Node<K, V>[] old, Node<K, V>[] cur, int lo, int hi, int batch) {
+            this.old = old;
+            this.cur = cur;
+            this.lo = lo;
+            this.hi = hi;
+            this.batch = batch;
+        }
+    }
+
+    final static class ForEachTask<K, V> extends BulkTask<K, V, Void> {
+        private final static long serialVersionUID = 1L;
+
+        final BiConsumer<? super K, ? super V> action;
+
+        ForEachTask(Node<K, V>[] old, Node<K, V>[] cur, int lo, int hi, int batch, BiConsumer<? super K, ? super V> action) {
+            super(old, cur, lo, hi, batch);
+            this.action = action;
+        }
+
+        @Override
+        protected Void compute() {
+            if (hi - lo > batch) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ForEachTask<K, V>(old, cur, lo, mid, batch, action),
+                        new ForEachTask<K, V>(old, cur, mid, hi, batch, action));
+                return null;
+            }
+            for (int i = lo; i < hi; i++) {
+                for (Node<K, V> e = bucketAt(old, cur, i); e != null; e = e.next) {
+                    action.accept(e.key, e.val);
+                }
+            }
+            return null;
+        }
+    }
+
+    final static class ReduceTask<K, V, U> extends BulkTask<K, V, U> {
+        private final static long serialVersionUID = 1L;
+
+        final BiFunction<? super K, ? super V, ? extends U> transformer;
+        final BiFunction<? super U, ? super U, ? extends U> reducer;
+
+        ReduceTask(Node<K, V>[] old, Node<K, V>[] cur, int lo, int hi, int batch,
+                   BiFunction<? super K, ? super V, ? extends U> transformer,
+                   BiFunction<? super U, ? super U, ? extends U> reducer) {
+            super(old, cur, lo, hi, batch);
+            this.transformer = transformer;
+            this.reducer = reducer;
+        }
+
+        @Override
+        protected U compute() {
+            if (hi - lo > batch) {
+                int mid = (lo + hi) >>> 1;
+                ReduceTask<K, V, U> right = new ReduceTask<K, V, U>(old, cur, mid, hi, batch, transformer, reducer);
+                right.fork();
+                U l = new ReduceTask<K, V, U>(old, cur, lo, mid, batch, transformer, reducer).compute();
+                U r = right.join();
+                return l == null ? r : r == null ? l : reducer.apply(l, r);
+            }
+            U result = null;
+            for (int i = lo; i < hi; i++) {
+                for (Node<K, V> e = bucketAt(old, cur, i); e != null; e = e.next) {
+                    U u = transformer.apply(e.key, e.val);
+                    if (u != null) {
+                        result = result == null ? u : reducer.apply(result, u);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 并行构造的子任务：src[lo, hi) 中的元素在 bit 之上的桶下标位都相同，按第 bit 位稳定地分成两半交给两个子任务；
+     * 元素足够少时直接放进桶数组
+     *
+     * @return 放入的不同 key 的个数
+     */
+    final static class BuildTask<K, V> extends RecursiveTask<Integer> {
+        private final static long serialVersionUID = 1L;
+
+        final Node<K, V>[] tab;
+        final Object[] keys;
+        final Object[] vals;
+        final int[] hashes;
+        final int[] src;
+        final int[] dst;
+        final int lo;
+        final int hi;
+        final int bit;
+        final int batch;
+        /**
+         * 链表长度达到 TREEIFY_THRESHOLD 的桶，全部放完之后再树化
+         */
+        final ConcurrentLinkedQueue<Integer> longBins;
+
+        BuildTask(Node<K, V>[] tab, Object[] keys, Object[] vals, int[] hashes, int[] src, int[] dst,
+                  int lo, int hi, int bit, int batch, ConcurrentLinkedQueue<Integer> longBins) {
+            this.tab = tab;
+            this.keys = keys;
+            this.vals = vals;
+            this.hashes = hashes;
+            this.src = src;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+            this.bit = bit;
+            this.batch = batch;
+            this.longBins = longBins;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo > batch && bit >= 0) {
+                int mid = lo;
+                for (int k = lo; k < hi; k++) {
+                    if ((hashes[src[k]] >>> bit & 1) == 0) {
+                        mid++;
+                    }
+                }
+                for (int k = lo, l = lo, h = mid; k < hi; k++) {
+                    int i = src[k];
+                    if ((hashes[i] >>> bit & 1) == 0) {
+                        dst[l++] = i;
+                    } else {
+                        dst[h++] = i;
+                    }
+                }
+                BuildTask<K, V> right = new BuildTask<K, V>(tab, keys, vals, hashes, dst, src, mid, hi, bit - 1, batch, longBins);
+                right.fork();
+                int count = new BuildTask<K, V>(tab, keys, vals, hashes, dst, src, lo, mid, bit - 1, batch, longBins).compute();
+                return count + right.join();
+            }
+            int count = 0;
+            int mask = tab.length - 1;
+            outer:
+            for (int k = lo; k < hi; k++) {
+                int i = src[k];
+                int hash = hashes[i];
+                int index = hash & mask;
+                int binCount = 0;
+                for (Node<K, V> e = tab[index]; e != null; e = e.next, binCount++) {
+                    if (e.hash == hash && e.key.equals(keys[i])) {
+                        e.val = (V) vals[i];
+                        continue outer;
+                    }
+                }
+                Node<K, V> newNode = new Node<K, V>(hash, (K) keys[i], (V) vals[i]);
+                newNode.next = tab[index];
+                tab[index] = newNode;
+                if (binCount + 1 == TREEIFY_THRESHOLD) {
+                    longBins.add(index);
+                }
+                count++;
+            }
+            return count;
+        }
+    }
+
+    final static class SearchTask<K, V, U> extends BulkTask<K, V, Void> {
+        private final static long serialVersionUID = 1L;
+
+        final BiFunction<? super K, ? super V, ? extends U> searchFunction;
+        final AtomicReference<U> result;
+
+        SearchTask(Node<K, V>[] old, Node<K, V>[] cur, int lo, int hi, int batch,
+                   BiFunction<? super K, ? super V, ? extends U> searchFunction, AtomicReference<U> result) {
+            super(old, cur, lo, hi, batch);
+            this.searchFunction = searchFunction;
+            this.result = result;
+        }
+
+        @Override
+        protected Void compute() {
+            if (result.get() != null) {
+                return null;
+            }
+            if (hi - lo > batch) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SearchTask<K, V, U>(old, cur, lo, mid, batch, searchFunction, result),
+                        new SearchTask<K, V, U>(old, cur, mid, hi, batch, searchFunction, result));
+                return null;
+            }
+            for (int i = lo; i < hi && result.get() == null; i++) {
+                for (Node<K, V> e = bucketAt(old, cur, i); e != null; e = e.next) {
+                    U u = searchFunction.apply(e.key, e.val);
+                    if (u != null) {
+                        result.compareAndSet(null, u);
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 链表过长时的处理：数组还小就扩容，否则把该桶转成树
+     */
+    private void treeifyBin(int index) {
+        if (array.length < MIN_TREEIFY_CAPACITY) {
+            resize();
+        } else {
+            treeify(array, index);
+        }
+    }
+
+    /**
+     * 把 tab[index] 上的链表转成树，next 链表的顺序保持不变
+     */
+    private void treeify(Node<K, V>[] tab, int index) {
+        TreeNode<K, V> root = null, first = null, tail = null;
+        for (Node<K, V> e = tab[index]; e != null; e = e.next) {
+            TreeNode<K, V> x = new TreeNode<K, V>(e.hash, e.key, e.val, treeSeq++);
+            if (tail == null) {
+                first = x;
+            } else {
+                tail.next = x;
+                x.prev = tail;
+            }
+            tail = x;
+            root = insertTree(root, x);
+        }
+        moveRootToFront(tab, index, root, first);
+    }
+
+    /**
+     * 树退化成链表
+     */
+    private void untreeify(Node<K, V>[] tab, int index) {
+        Node<K, V> head = null, tail = null;
+        for (Node<K, V> e = tab[index]; e != null; e = e.next) {
+            Node<K, V> node = new Node<K, V>(e.hash, e.key, e.val);
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+        tab[index] = head;
+    }
+
+    /**
+     * 在树中查找
+     * 先按 hash 比较；hash 相同时如果 key 是同一个 Comparable 类型就按 compareTo 比较；
+     * 仍然分不出大小（不可比较或 compareTo 为 0 但不 equals）时，左右子树都要找
+     */
+    private static <K, V> TreeNode<K, V> findTreeNode(TreeNode<K, V> p, int hash, Object key) {
+        while (p != null) {
+            if (hash < p.hash) {
+                p = p.left;
+            } else if (hash > p.hash) {
+                p = p.right;
+            } else if (p.key.equals(key)) {
+                return p;
+            } else {
+                int dir = compareComparables(key, p.key);
+                if (dir != 0) {
+                    p = dir < 0 ? p.left : p.right;
+                } else {
+                    TreeNode<K, V> q = findTreeNode(p.right, hash, key);
+                    if (q != null) {
+                        return q;
+                    }
+                    p = p.left;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 向树桶中插入一个确定不存在的 key
+     */
+    private void putTreeVal(Node<K, V>[] tab, int index, int hash, K key, V val) {
+        TreeNode<K, V> root = (TreeNode<K, V>) tab[index];
+        TreeNode<K, V> x = new TreeNode<K, V>(hash, key, val, treeSeq++);
+        //挂到链表第二个位置，树根仍然是第一个
+        TreeNode<K, V> next = (TreeNode<K, V>) root.next;
+        x.next = next;
+        x.prev = root;
+        if (next != null) {
+            next.prev = x;
+        }
+        root.next = x;
+        moveRootToFront(tab, index, insertTree(root, x), root);
+    }
+
+    /**
+     * 从树桶中删除节点 x，节点足够少时退化成链表
+     */
+    private void removeTreeNode(Node<K, V>[] tab, int index, TreeNode<K, V> x, boolean movable) {
+        TreeNode<K, V> first = (TreeNode<K, V>) tab[index];
+        TreeNode<K, V> prev = x.prev, next = (TreeNode<K, V>) x.next;
+        if (prev == null) {
+            first = next;
+        } else {
+            prev.next = next;
+        }
+        if (next != null) {
+            next.prev = prev;
+        }
+        TreeNode<K, V> root = deleteTree((TreeNode<K, V>) tab[index], x);
+        x.prev = x.left = x.right = null;
+        if (movable) {
+            x.next = null;
+        }
+        if (root == null) {
+            tab[index] = null;
+            return;
+        }
+        moveRootToFront(tab, index, root, first);
+        //高度不超过 3 的 AVL 树最多 7 个节点，这时才需要数一下节点个数
+        if (movable && root.height <= 3) {
+            int count = 0;
+            for (Node<K, V> e = root; e != null; e = e.next) {
+                count++;
+            }
+            if (count <= UNTREEIFY_THRESHOLD) {
+                untreeify(tab, index);
+            }
+        }
+    }
+
+    /**
+     * 保证树根是链表的第一个节点，并放到桶中
+     */
+    private static <K, V> void moveRootToFront(Node<K, V>[] tab, int index, TreeNode<K, V> root, TreeNode<K, V> first) {
+        if (root != first) {
+            TreeNode<K, V> prev = root.prev, next = (TreeNode<K, V>) root.next;
+            prev.next = next;
+            if (next != null) {
+                next.prev = prev;
+            }
+            root.next = first;
+            root.prev = null;
+            first.prev = root;
+        }
+        tab[index] = root;
+    }
+
+    /**
+     * 节点在树中的全序：hash -> compareTo -> 创建序号
+     */
+    private static <K, V> int order(TreeNode<K, V> a, TreeNode<K, V> b) {
+        if (a.hash != b.hash) {
+            return a.hash < b.hash ? -1 : 1;
+        }
+        int d = compareComparables(a.key, b.key);
+        if (d != 0) {
+            return d;
+        }
+        return a.seq < b.seq ? -1 : (a.seq == b.seq ? 0 : 1);
+    }
+
+    /**
+     * 两个 key 是同一个 Comparable 类型时返回 compareTo 的结果，否则返回 0
+     */
+    private static int compareComparables(Object k, Object x) {
+        if (k instanceof Comparable && x != null && x.getClass() == k.getClass()) {
+            return ((Comparable<Object>) k).compareTo(x);
+        }
+        return 0;
+    }
+
+    private static <K, V> TreeNode<K, V> insertTree(TreeNode<K, V> p, TreeNode<K, V> x) {
+        if (p == null) {
+            return x;
+        }
+        if (order(x, p) < 0) {
+            p.left = insertTree(p.left, x);
+        } else {
+            p.right = insertTree(p.right, x);
+        }
+        return balance(p);
+    }
+
+    private static <K, V> TreeNode<K, V> deleteTree(TreeNode<K, V> p, TreeNode<K, V> x) {
+        if (p == null) {
+            return null;
+        }
+        if (p == x) {
+            if (p.left == null) {
+                return p.right;
+            }
+            if (p.right == null) {
+                return p.left;
+            }
+            //用右子树的最小节点顶替
+            TreeNode<K, V> m = p.right;
+            while (m.left != null) {
+                m = m.left;
+            }
+            m.right = deleteMin(p.right);
+            m.left = p.left;
+            return balance(m);
+        }
+        if (order(x, p) < 0) {
+            p.left = deleteTree(p.left, x);
+        } else {
+            p.right = deleteTree(p.right, x);
+        }
+        return balance(p);
+    }
+
+    private static <K, V> TreeNode<K, V> deleteMin(TreeNode<K, V> p) {
+        if (p.left == null) {
+            return p.right;
+        }
+        p.left = deleteMin(p.left);
+        return balance(p);
+    }
+
+    private static int height(TreeNode<?, ?> p) {
+        return p == null ? 0 : p.height;
+    }
+
+    /**
+     * AVL 平衡：左右子树高度差超过 1 时旋转
+     */
+    private static <K, V> TreeNode<K, V> balance(TreeNode<K, V> p) {
+        int bf = height(p.left) - height(p.right);
+        if (bf > 1) {
+            if (height(p.left.left) < height(p.left.right)) {
+                p.left = rotateLeft(p.left);
+            }
+            return rotateRight(p);
+        }
+        if (bf < -1) {
+            if (height(p.right.right) < height(p.right.left)) {
+                p.right = rotateRight(p.right);
+            }
+            return rotateLeft(p);
+        }
+        p.height = Math.max(height(p.left), height(p.right)) + 1;
+        return p;
+    }
+
+    private static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> p) {
+        TreeNode<K, V> r = p.right;
+        p.right = r.left;
+        r.left = p;
+        p.height = Math.max(height(p.left), height(p.right)) + 1;
+        r.height = Math.max(height(r.left), height(r.right)) + 1;
+        return r;
+    }
+
+    private static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> p) {
+        TreeNode<K, V> l = p.left;
+        p.left = l.right;
+        l.right = p;
+        p.height = Math.max(height(p.left), height(p.right)) + 1;
+        l.height = Math.max(height(l.left), height(l.right)) + 1;
+        return l;
+    }
+
+    /**
+     * 不小于 c 的最小的 2 的幂，至少为 INIT_ARRAY_SIZE，最大为 2^30
+     */
+    private static int tableSizeFor(int c) {
+        int n = INIT_ARRAY_SIZE;
+        while (n < c && n < (1 << 30)) {
+            n <<= 1;
+        }
+        return n;
+    }
+
     /**
      * 核心hash算法
      * 对于 hashcode相同的 字符串的解决方案：使用equals()再加一层比较，在get()方法中体现
@@ -0,0 +1,274 @@
+package com.zcp.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：带索引的优先级队列，元素用非负的 int id 标识，每个 id 带一个优先级 key
+ * 1.pos 数组记录每个 id 在堆中的下标，contains、keyOf 为 O(1)
+ * 2.update 修改优先级后按变小还是变大向上或向下调整，remove 用堆尾元素填补空位再调整，都是 O(log n)，不需要扫描整个堆
+ * 3.与 PriorityQueue 一样是 4 叉堆，id 超出当前范围时自动扩容
+ * 适合 Dijkstra 这类需要 decrease-key 的场景
+ * @version:
+ */
+public class IndexedPriorityQueue<E> {
+
+    /**
+     * 堆，存放的是 id
+     */
+    private int[] heap;
+
+    /**
+     * id -> 在堆中的下标，-1 表示不在队列中
+     */
+    private int[] pos;
+
+    /**
+     * id -> 优先级
+     */
+    private Object[] keys;
+
+    private int size;
+
+    private final Comparator<E> comparator;
+
+    private final static int ARITY = 4;
+
+    private final static int DEFAULT_CAPACITY = 8;
+
+    public IndexedPriorityQueue() {
+        this(DEFAULT_CAPACITY, null);
+    }
+
+    /**
+     * @param capacity id 的初始范围 [0, capacity)
+     */
+    public IndexedPriorityQueue(int capacity, Comparator comparator) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        capacity = Math.max(capacity, 1);
+        this.heap = new int[capacity];
+        this.pos = new int[capacity];
+        Arrays.fill(pos, -1);
+        this.keys = new Object[capacity];
+        this.comparator = comparator;
+    }
+
+    /**
+     * 放入一个新的 id
+     *
+     * @throws IllegalArgumentException id 已经在队列中
+     */
+    public void offer(int id, E key) {
+        ensureId(id);
+        if (pos[id] >= 0) {
+            throw new IllegalArgumentException("id " + id + " already in queue");
+        }
+        if (key == null) {
+            throw new NullPointerException("key is null");
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size << 1);
+        }
+        keys[id] = key;
+        heap[size] = id;
+        pos[id] = size;
+        heapInsert(size++);
+    }
+
+    /**
+     * 修改 id 的优先级，变小向上调整，变大向下调整
+     *
+     * @return 原来的优先级
+     * @throws IllegalArgumentException id 不在队列中
+     */
+    public E update(int id, E key) {
+        int index = indexOf(id);
+        if (key == null) {
+            throw new NullPointerException("key is null");
+        }
+        E old = (E) keys[id];
+        keys[id] = key;
+        int c = compare(key, old);
+        if (c < 0) {
+            heapInsert(index);
+        } else if (c > 0) {
+            heapify(index);
+        }
+        return old;
+    }
+
+    /**
+     * id 不在队列中时放入，在队列中且新的优先级更小时修改，用于 Dijkstra 的松弛操作
+     *
+     * @return 队列是否发生了变化
+     */
+    public boolean offerOrDecrease(int id, E key) {
+        if (!contains(id)) {
+            offer(id, key);
+            return true;
+        }
+        if (compare(key, keys[id]) < 0) {
+            update(id, key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return 原来的优先级
+     * @throws IllegalArgumentException id 不在队列中
+     */
+    public E remove(int id) {
+        int index = indexOf(id);
+        E old = (E) keys[id];
+        int last = heap[--size];
+        pos[id] = -1;
+        keys[id] = null;
+        if (index != size) {
+            //堆尾元素填补空位，可能比原来的元素大也可能小
+            heap[index] = last;
+            pos[last] = index;
+            heapInsert(index);
+            if (heap[index] == last) {
+                heapify(index);
+            }
+        }
+        return old;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < pos.length && pos[id] >= 0;
+    }
+
+    /**
+     * @return id 的优先级，不在队列中时返回 null
+     */
+    public E keyOf(int id) {
+        return contains(id) ? (E) keys[id] : null;
+    }
+
+    /**
+     * @return 优先级最小的 id，队列为空时返回 -1
+     */
+    public int peek() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    public E peekKey() {
+        return size == 0 ? null : (E) keys[heap[0]];
+    }
+
+    /**
+     * 取出优先级最小的 id，队列为空时返回 -1
+     */
+    public int poll() {
+        if (size == 0) {
+            return -1;
+        }
+        int id = heap[0];
+        remove(id);
+        return id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+            keys[heap[i]] = null;
+        }
+        size = 0;
+    }
+
+    private int indexOf(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("id " + id + " not in queue");
+        }
+        return pos[id];
+    }
+
+    /**
+     * id 超出范围时扩容 pos、keys
+     */
+    private void ensureId(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("id < 0");
+        }
+        int length = pos.length;
+        if (id < length) {
+            return;
+        }
+        int newLength = Math.max(id + 1, length << 1);
+        if (newLength < 0) {
+            newLength = Integer.MAX_VALUE;
+        }
+        pos = Arrays.copyOf(pos, newLength);
+        Arrays.fill(pos, length, newLength, -1);
+        keys = Arrays.copyOf(keys, newLength);
+    }
+
+    /**
+     * 向上调整，沿途的父节点依次下移并更新下标
+     */
+    private void heapInsert(int index) {
+        int id = heap[index];
+        Object key = keys[id];
+        while (index > 0) {
+            int pIndex = (index - 1) / ARITY;
+            int parent = heap[pIndex];
+            if (compare(key, keys[parent]) >= 0) {
+                break;
+            }
+            heap[index] = parent;
+            pos[parent] = index;
+            index = pIndex;
+        }
+        heap[index] = id;
+        pos[id] = index;
+    }
+
+    /**
+     * 向下调整，在子节点中找出最小的一个，比当前元素小就上移
+     */
+    private void heapify(int index) {
+        int id = heap[index];
+        Object key = keys[id];
+        long child;
+        while ((child = (long) index * ARITY + 1) < size) {
+            int min = (int) child;
+            int end = (int) Math.min(child + ARITY, size);
+            for (int c = min + 1; c < end; c++) {
+                if (compare(keys[heap[c]], keys[heap[min]]) < 0) {
+                    min = c;
+                }
+            }
+            int minId = heap[min];
+            if (compare(keys[minId], key) >= 0) {
+                break;
+            }
+            heap[index] = minId;
+            pos[minId] = index;
+            index = min;
+        }
+        heap[index] = id;
+        pos[id] = index;
+    }
+
+    private int compare(Object a, Object b) {
+        if (comparator != null) {
+            return comparator.compare((E) a, (E) b);
+        }
+        return ((Comparable<? super E>) a).compareTo((E) b);
+    }
+
+}
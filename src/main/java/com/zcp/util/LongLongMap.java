@@ -0,0 +1,237 @@
+package com.zcp.util;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：key、value 都是 long 的哈希表，分别存在两个 long[] 里，put/get 都不需要装箱
+ * get/put/remove 在 key 不存在时返回 0，需要区分时请使用 containsKey 或 getOrDefault
+ * 线性探测 + backward shift 删除；key 为 0 的元素单独存放，0 用来表示空槽
+ * @version:
+ */
+public class LongLongMap {
+
+    private long[] keys;
+
+    private long[] vals;
+
+    /**
+     * key == 0 的元素
+     */
+    private boolean hasZeroKey;
+    private long zeroVal;
+
+    /**
+     * 数组默认大小
+     */
+    private final static int INIT_ARRAY_SIZE = 8;
+
+    /**
+     * 扩容因子
+     */
+    private final static float FACTOR = 0.75f;
+
+    private int size;
+
+    private int threshold;
+
+    public LongLongMap() {
+        this(INIT_ARRAY_SIZE);
+    }
+
+    /**
+     * @param capacity 预计存放的元素个数
+     */
+    public LongLongMap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        init(tableSizeFor((int) Math.ceil(capacity / FACTOR)));
+    }
+
+    private void init(int length) {
+        keys = new long[length];
+        vals = new long[length];
+        threshold = (int) (length * FACTOR);
+    }
+
+    public long put(long key, long val) {
+        if (key == 0) {
+            long old = zeroVal;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroVal = val;
+            return old;
+        }
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        long k;
+        while ((k = keys[index]) != 0) {
+            if (k == key) {
+                long old = vals[index];
+                vals[index] = val;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        vals[index] = val;
+        if (++size > threshold) {
+            transfer();//扩容
+        }
+        return 0;
+    }
+
+    public long get(long key) {
+        return getOrDefault(key, 0);
+    }
+
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroVal : defaultValue;
+        }
+        int index = find(key);
+        return index < 0 ? defaultValue : vals[index];
+    }
+
+    /**
+     * key 不存在时以 delta 作为初始值，计数聚合只需要一次探测
+     *
+     * @return 累加之后的值
+     */
+    public long addTo(long key, long delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            return zeroVal += delta;
+        }
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        long k;
+        while ((k = keys[index]) != 0) {
+            if (k == key) {
+                return vals[index] += delta;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        vals[index] = delta;
+        if (++size > threshold) {
+            transfer();//扩容
+        }
+        return delta;
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : find(key) >= 0;
+    }
+
+    public long remove(long key) {
+        if (key == 0) {
+            long old = zeroVal;
+            if (hasZeroKey) {
+                hasZeroKey = false;
+                zeroVal = 0;
+                size--;
+            }
+            return old;
+        }
+        int index = find(key);
+        if (index < 0) {
+            return 0;
+        }
+        long old = vals[index];
+        shiftKeys(index);
+        size--;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        long k;
+        while ((k = keys[index]) != 0) {
+            if (k == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * backward shift：删除 index 之后，把探测链上可以前移的元素往前挪，保证查找不会在空槽处提前终止
+     */
+    private void shiftKeys(int index) {
+        int mask = keys.length - 1;
+        int last;
+        for (; ; ) {
+            index = ((last = index) + 1) & mask;
+            long k;
+            for (; ; ) {
+                if ((k = keys[index]) == 0) {
+                    keys[last] = 0;
+                    vals[last] = 0;
+                    return;
+                }
+                int ideal = hash(k) & mask;
+                //ideal 不在 (last, index] 区间内，说明可以挪到 last
+                if (last <= index ? last >= ideal || ideal > index : last >= ideal && ideal > index) {
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[last] = k;
+            vals[last] = vals[index];
+        }
+    }
+
+    /**
+     * 将原来的数组扩容成2倍
+     */
+    private void transfer() {
+        long[] oldKeys = keys;
+        long[] oldVals = vals;
+        init(oldKeys.length << 1);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k != 0) {
+                int index = hash(k) & mask;
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = k;
+                vals[index] = oldVals[i];
+            }
+        }
+    }
+
+    private static int tableSizeFor(int c) {
+        int n = INIT_ARRAY_SIZE;
+        while (n < c && n < (1 << 30)) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * 先像 Long.hashCode() 一样把高低32位折叠，再用与 HashMap7 相同的扰动函数
+     */
+    private static int hash(long key) {
+        int h = (int) (key ^ (key >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+}
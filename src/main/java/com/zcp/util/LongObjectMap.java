@@ -0,0 +1,202 @@
+package com.zcp.util;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：long 作为 key 的哈希表，key 直接存在 long[] 里，put/get 都不需要装箱
+ * 线性探测 + backward shift 删除；key 为 0 的元素单独存放，0 用来表示空槽
+ * @version:
+ */
+public class LongObjectMap<V> {
+
+    private long[] keys;
+
+    private Object[] vals;
+
+    /**
+     * key == 0 的元素
+     */
+    private boolean hasZeroKey;
+    private V zeroVal;
+
+    /**
+     * 数组默认大小
+     */
+    private final static int INIT_ARRAY_SIZE = 8;
+
+    /**
+     * 扩容因子
+     */
+    private final static float FACTOR = 0.75f;
+
+    private int size;
+
+    private int threshold;
+
+    public LongObjectMap() {
+        this(INIT_ARRAY_SIZE);
+    }
+
+    /**
+     * @param capacity 预计存放的元素个数
+     */
+    public LongObjectMap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        init(tableSizeFor((int) Math.ceil(capacity / FACTOR)));
+    }
+
+    private void init(int length) {
+        keys = new long[length];
+        vals = new Object[length];
+        threshold = (int) (length * FACTOR);
+    }
+
+    public V put(long key, V val) {
+        if (key == 0) {
+            V old = zeroVal;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroVal = val;
+            return old;
+        }
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        long k;
+        while ((k = keys[index]) != 0) {
+            if (k == key) {
+                V old = (V) vals[index];
+                vals[index] = val;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        vals[index] = val;
+        if (++size > threshold) {
+            transfer();//扩容
+        }
+        return null;
+    }
+
+    public V get(long key) {
+        if (key == 0) {
+            return zeroVal;
+        }
+        int index = find(key);
+        return index < 0 ? null : (V) vals[index];
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : find(key) >= 0;
+    }
+
+    public V remove(long key) {
+        if (key == 0) {
+            V old = zeroVal;
+            if (hasZeroKey) {
+                hasZeroKey = false;
+                zeroVal = null;
+                size--;
+            }
+            return old;
+        }
+        int index = find(key);
+        if (index < 0) {
+            return null;
+        }
+        V old = (V) vals[index];
+        shiftKeys(index);
+        size--;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        long k;
+        while ((k = keys[index]) != 0) {
+            if (k == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * backward shift：删除 index 之后，把探测链上可以前移的元素往前挪，保证查找不会在空槽处提前终止
+     */
+    private void shiftKeys(int index) {
+        int mask = keys.length - 1;
+        int last;
+        for (; ; ) {
+            index = ((last = index) + 1) & mask;
+            long k;
+            for (; ; ) {
+                if ((k = keys[index]) == 0) {
+                    keys[last] = 0;
+                    vals[last] = null;
+                    return;
+                }
+                int ideal = hash(k) & mask;
+                //ideal 不在 (last, index] 区间内，说明可以挪到 last
+                if (last <= index ? last >= ideal || ideal > index : last >= ideal && ideal > index) {
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[last] = k;
+            vals[last] = vals[index];
+        }
+    }
+
+    /**
+     * 将原来的数组扩容成2倍
+     */
+    private void transfer() {
+        long[] oldKeys = keys;
+        Object[] oldVals = vals;
+        init(oldKeys.length << 1);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k != 0) {
+                int index = hash(k) & mask;
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = k;
+                vals[index] = oldVals[i];
+            }
+        }
+    }
+
+    private static int tableSizeFor(int c) {
+        int n = INIT_ARRAY_SIZE;
+        while (n < c && n < (1 << 30)) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * 先像 Long.hashCode() 一样把高低32位折叠，再用与 HashMap7 相同的扰动函数
+     */
+    private static int hash(long key) {
+        int h = (int) (key ^ (key >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.zcp.util;
+
+import java.util.Arrays;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：以 long 为优先级的优先级队列，适合按时间戳、截止时间排序的场景
+ * 优先级存放在 long[] 中，附带的数据存放在平行的 Object[] 中，调整堆时直接比较 long，
+ * 没有 Comparator 的虚调用，也没有从 Object[] 取出元素的强制转换和装箱
+ * 与 PriorityQueue 一样是 4 叉堆，容量不够时扩容
+ * 优先级直接按 long 的大小比较，不做 System.nanoTime() 那样的回绕处理，用 时间 + 间隔 作为优先级时调用方需要处理溢出
+ * @version:
+ */
+public class LongPriorityQueue<E> {
+
+    private long[] keys;
+
+    private Object[] vals;
+
+    private int size;
+
+    private final static int ARITY = 4;
+
+    private final static int DEFAULT_CAPACITY = 8;
+
+    public LongPriorityQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongPriorityQueue(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        capacity = Math.max(capacity, 1);
+        this.keys = new long[capacity];
+        this.vals = new Object[capacity];
+    }
+
+    /**
+     * @param key 优先级，越小越先出队
+     * @param val 附带的数据，可以为 null
+     */
+    public void offer(long key, E val) {
+        if (size == keys.length) {
+            addition();
+        }
+        int index = size++;
+        //向上调整，沿途的父节点依次下移，最后一次性放入
+        while (index > 0) {
+            int pIndex = (index - 1) / ARITY;
+            long parent = keys[pIndex];
+            if (key >= parent) {
+                break;
+            }
+            keys[index] = parent;
+            vals[index] = vals[pIndex];
+            index = pIndex;
+        }
+        keys[index] = key;
+        vals[index] = val;
+    }
+
+    /**
+     * @return 最小的优先级
+     * @throws IllegalStateException 队列为空
+     */
+    public long peekKey() {
+        if (size == 0) {
+            throw new IllegalStateException("队列为空");
+        }
+        return keys[0];
+    }
+
+    /**
+     * @return 优先级最小的元素附带的数据，队列为空时返回 null
+     */
+    public E peek() {
+        return size == 0 ? null : (E) vals[0];
+    }
+
+    /**
+     * 出队，优先级需要时先调用 peekKey()
+     *
+     * @return 优先级最小的元素附带的数据，队列为空时返回 null
+     */
+    public E poll() {
+        if (size == 0) {
+            return null;
+        }
+        E ans = (E) vals[0];
+        int last = --size;
+        long key = keys[last];
+        Object val = vals[last];
+        vals[last] = null;
+        if (last > 0) {
+            heapify(key, val);
+        }
+        return ans;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(vals, 0, size, null);
+        size = 0;
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * 把 key/val 从堆顶向下调整
+     */
+    private void heapify(long key, Object val) {
+        int index = 0;
+        long child;
+        while ((child = (long) index * ARITY + 1) < size) {
+            int min = (int) child;
+            int end = (int) Math.min(child + ARITY, size);
+            long minKey = keys[min];
+            for (int c = min + 1; c < end; c++) {
+                if (keys[c] < minKey) {
+                    minKey = keys[c];
+                    min = c;
+                }
+            }
+            if (minKey >= key) {
+                break;
+            }
+            keys[index] = minKey;
+            vals[index] = vals[min];
+            index = min;
+        }
+        keys[index] = key;
+        vals[index] = val;
+    }
+
+    /**
+     * 扩容
+     */
+    private void addition() {
+        int capacity = keys.length << 1;
+        if (capacity < 0) {
+            throw new OutOfMemoryError("队列容量溢出");
+        }
+        keys = Arrays.copyOf(keys, capacity);
+        vals = Arrays.copyOf(vals, capacity);
+    }
+
+}
@@ -0,0 +1,457 @@
+package com.zcp.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：基于内存映射文件的持久化哈希表 数组+单链表
+ * 文件布局：| 文件头(64) | 数据区：桶数组、节点依次追加 |
+ * 节点布局：| next(8) | hash(4) | keyLen(4) | valLen(4) | key bytes | val bytes |，next 存放下一个节点在文件中的偏移量
+ * get/put/remove 直接读写映射的内存，重启后重新打开文件即可使用，不需要重建；
+ * 删除和变长更新留下的空间记在 garbage 里，可以通过 compact() 回收。
+ * 数据在 flush()/close() 时刷盘，进程在写入过程中崩溃时不保证文件一致；文件最大 2GB，非线程安全
+ * @version:
+ */
+public class MappedHashMap<K, V> implements Closeable {
+
+    private final static int MAGIC = 0x5A43504D;
+    private final static int VERSION = 1;
+
+    /**
+     * 文件头各字段的偏移量
+     */
+    private final static int MAGIC_OFFSET = 0;
+    private final static int VERSION_OFFSET = 4;
+    private final static int TABLE_OFFSET_OFFSET = 8;
+    private final static int TABLE_LENGTH_OFFSET = 16;
+    private final static int SIZE_OFFSET = 20;
+    private final static int DATA_END_OFFSET = 24;
+    private final static int GARBAGE_OFFSET = 32;
+    private final static int FILE_HEADER_SIZE = 64;
+
+    /**
+     * 节点各字段的偏移量
+     */
+    private final static int NEXT_OFFSET = 0;
+    private final static int HASH_OFFSET = 8;
+    private final static int KEY_LEN_OFFSET = 12;
+    private final static int VAL_LEN_OFFSET = 16;
+    private final static int HEADER_SIZE = 20;
+
+    /**
+     * 数组默认大小
+     */
+    private final static int INIT_ARRAY_SIZE = 8;
+
+    /**
+     * 扩容因子
+     */
+    private final static float FACTOR = 0.75f;
+
+    private final static int INIT_FILE_SIZE = 1 << 16;
+
+    private final File file;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valSerializer;
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+
+    private int tableOffset;
+    private int tableLength;
+    private int size;
+    private int dataEnd;
+    private long garbage;
+
+    /**
+     * 序列化 key 时复用的缓冲区
+     */
+    private ByteBuffer keyBuf = ByteBuffer.allocate(64);
+
+    /**
+     * 打开文件，文件不存在或为空时新建
+     */
+    public MappedHashMap(File file, Serializer<K> keySerializer, Serializer<V> valSerializer) throws IOException {
+        this.file = file;
+        this.keySerializer = keySerializer;
+        this.valSerializer = valSerializer;
+        open();
+    }
+
+    private void open() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        long fileSize = channel.size();
+        if (fileSize == 0) {
+            map(INIT_FILE_SIZE);
+            dataEnd = FILE_HEADER_SIZE;
+            tableLength = INIT_ARRAY_SIZE;
+            tableOffset = allocate(tableLength << 3);
+            mapped.putInt(MAGIC_OFFSET, MAGIC);
+            mapped.putInt(VERSION_OFFSET, VERSION);
+            writeHeader();
+            return;
+        }
+        if (fileSize < FILE_HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+            close();
+            throw new IOException("not a MappedHashMap file: " + file);
+        }
+        map((int) fileSize);
+        if (mapped.getInt(MAGIC_OFFSET) != MAGIC || mapped.getInt(VERSION_OFFSET) != VERSION) {
+            close();
+            throw new IOException("not a MappedHashMap file: " + file);
+        }
+        tableOffset = (int) mapped.getLong(TABLE_OFFSET_OFFSET);
+        tableLength = mapped.getInt(TABLE_LENGTH_OFFSET);
+        size = mapped.getInt(SIZE_OFFSET);
+        dataEnd = (int) mapped.getLong(DATA_END_OFFSET);
+        garbage = mapped.getLong(GARBAGE_OFFSET);
+    }
+
+    public void put(K key, V val) throws IOException {
+        ensureOpen();
+        int keyLen = serializeKey(key);
+        int valLen = valSerializer.size(val);
+        int hash = hash(keyBuf.array(), keyLen);
+        int slot = tableOffset + ((hash & (tableLength - 1)) << 3);
+        int pre = 0;
+        for (int node = (int) mapped.getLong(slot); node != 0; pre = node, node = (int) mapped.getLong(node + NEXT_OFFSET)) {
+            if (matches(node, hash, keyLen)) {
+                //已存在：长度相同直接覆盖，否则追加新节点替换
+                if (mapped.getInt(node + VAL_LEN_OFFSET) == valLen) {
+                    writeVal(val, node + HEADER_SIZE + keyLen, valLen);
+                    return;
+                }
+                int oldLen = HEADER_SIZE + keyLen + mapped.getInt(node + VAL_LEN_OFFSET);
+                int next = (int) mapped.getLong(node + NEXT_OFFSET);
+                int newNode = newNode(hash, keyLen, val, valLen);
+                //追加节点可能重新映射文件，偏移量不受影响
+                mapped.putLong(newNode + NEXT_OFFSET, next);
+                mapped.putLong(pre == 0 ? slot : pre + NEXT_OFFSET, newNode);
+                garbage += oldLen;
+                writeHeader();
+                return;
+            }
+        }
+        //不存在，头插法插入新的节点
+        int newNode = newNode(hash, keyLen, val, valLen);
+        mapped.putLong(newNode + NEXT_OFFSET, mapped.getLong(slot));
+        mapped.putLong(slot, newNode);
+        size++;
+        if (size > tableLength * FACTOR) {
+            transfer();//扩容
+        }
+        writeHeader();
+    }
+
+    public V get(K key) {
+        if (key == null) {
+            throw new RuntimeException("key is null");
+        }
+        ensureOpen();
+        int node = find(key);
+        if (node == 0) {
+            return null;
+        }
+        return readVal(node);
+    }
+
+    public boolean containsKey(K key) {
+        ensureOpen();
+        return find(key) != 0;
+    }
+
+    public V remove(K key) {
+        ensureOpen();
+        int keyLen = serializeKey(key);
+        int hash = hash(keyBuf.array(), keyLen);
+        int slot = tableOffset + ((hash & (tableLength - 1)) << 3);
+        int pre = 0;
+        for (int node = (int) mapped.getLong(slot); node != 0; pre = node, node = (int) mapped.getLong(node + NEXT_OFFSET)) {
+            if (matches(node, hash, keyLen)) {
+                //删除头节点时修改桶，否则修改前一个节点
+                mapped.putLong(pre == 0 ? slot : pre + NEXT_OFFSET, mapped.getLong(node + NEXT_OFFSET));
+                V old = readVal(node);
+                garbage += HEADER_SIZE + keyLen + mapped.getInt(node + VAL_LEN_OFFSET);
+                size--;
+                writeHeader();
+                return old;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 删除、变长更新和扩容留下的无用字节数
+     */
+    public long garbageBytes() {
+        return garbage;
+    }
+
+    /**
+     * 文件中已使用的字节数
+     */
+    public long usedBytes() {
+        return dataEnd;
+    }
+
+    /**
+     * 把映射的修改刷到磁盘
+     */
+    public void flush() {
+        ensureOpen();
+        mapped.force();
+    }
+
+    /**
+     * 只保留存活的节点重写到临时文件，再替换原文件
+     */
+    public void compact() throws IOException {
+        ensureOpen();
+        File tmp = new File(file.getPath() + ".compact");
+        Files.deleteIfExists(tmp.toPath());
+        try (RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+            int newTableLength = INIT_ARRAY_SIZE;
+            while (size > newTableLength * FACTOR) {
+                newTableLength <<= 1;
+            }
+            int newTableOffset = FILE_HEADER_SIZE;
+            long total = newTableOffset + ((long) newTableLength << 3) + (dataEnd - garbage);
+            MappedByteBuffer target = out.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, total);
+            int end = newTableOffset + (newTableLength << 3);
+            for (int i = 0; i < tableLength; i++) {
+                int node = (int) mapped.getLong(tableOffset + (i << 3));
+                while (node != 0) {
+                    int next = (int) mapped.getLong(node + NEXT_OFFSET);
+                    int len = HEADER_SIZE + mapped.getInt(node + KEY_LEN_OFFSET) + mapped.getInt(node + VAL_LEN_OFFSET);
+                    ByteBuffer src = mapped.duplicate();
+                    src.limit(node + len).position(node);
+                    target.position(end);
+                    target.put(src);
+                    int slot = newTableOffset + ((mapped.getInt(node + HASH_OFFSET) & (newTableLength - 1)) << 3);
+                    target.putLong(end + NEXT_OFFSET, target.getLong(slot));
+                    target.putLong(slot, end);
+                    end += len;
+                    node = next;
+                }
+            }
+            target.putInt(MAGIC_OFFSET, MAGIC);
+            target.putInt(VERSION_OFFSET, VERSION);
+            target.putLong(TABLE_OFFSET_OFFSET, newTableOffset);
+            target.putInt(TABLE_LENGTH_OFFSET, newTableLength);
+            target.putInt(SIZE_OFFSET, size);
+            target.putLong(DATA_END_OFFSET, end);
+            target.putLong(GARBAGE_OFFSET, 0L);
+            target.force();
+            unmap(target);
+        }
+        close();
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (mapped != null) {
+            mapped.force();
+            unmap(mapped);
+            mapped = null;
+        }
+        if (raf != null) {
+            raf.close();
+            raf = null;
+            channel = null;
+        }
+    }
+
+    private int find(K key) {
+        int keyLen = serializeKey(key);
+        int hash = hash(keyBuf.array(), keyLen);
+        int node = (int) mapped.getLong(tableOffset + ((hash & (tableLength - 1)) << 3));
+        while (node != 0) {
+            if (matches(node, hash, keyLen)) {
+                return node;
+            }
+            node = (int) mapped.getLong(node + NEXT_OFFSET);
+        }
+        return 0;
+    }
+
+    /**
+     * value 直接从映射的内存中反序列化
+     */
+    private V readVal(int node) {
+        int keyLen = mapped.getInt(node + KEY_LEN_OFFSET);
+        int valLen = mapped.getInt(node + VAL_LEN_OFFSET);
+        ByteBuffer buf = mapped.duplicate();
+        buf.position(node + HEADER_SIZE + keyLen);
+        return valSerializer.read(buf, valLen);
+    }
+
+    private boolean matches(int node, int hash, int keyLen) {
+        if (mapped.getInt(node + HASH_OFFSET) != hash || mapped.getInt(node + KEY_LEN_OFFSET) != keyLen) {
+            return false;
+        }
+        byte[] bytes = keyBuf.array();
+        int address = node + HEADER_SIZE;
+        for (int i = 0; i < keyLen; i++) {
+            if (mapped.get(address + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 在数据区末尾追加节点，key 从 keyBuf 复制，value 直接序列化到映射的内存里
+     */
+    private int newNode(int hash, int keyLen, V val, int valLen) throws IOException {
+        int node = allocate(HEADER_SIZE + keyLen + valLen);
+        mapped.putLong(node + NEXT_OFFSET, 0L);
+        mapped.putInt(node + HASH_OFFSET, hash);
+        mapped.putInt(node + KEY_LEN_OFFSET, keyLen);
+        mapped.putInt(node + VAL_LEN_OFFSET, valLen);
+        mapped.position(node + HEADER_SIZE);
+        mapped.put(keyBuf.array(), 0, keyLen);
+        writeVal(val, node + HEADER_SIZE + keyLen, valLen);
+        return node;
+    }
+
+    private void writeVal(V val, int position, int valLen) {
+        mapped.position(position);
+        valSerializer.write(val, mapped);
+        if (mapped.position() != position + valLen) {
+            throw new IllegalStateException("serializer wrote " + (mapped.position() - position) + " bytes, expected " + valLen);
+        }
+    }
+
+    /**
+     * 在数据区末尾分配 len 个字节，文件不够时按 2 倍扩大并重新映射
+     *
+     * @return 分配到的偏移量
+     */
+    private int allocate(int len) throws IOException {
+        long end = (long) dataEnd + len;
+        if (end > Integer.MAX_VALUE) {
+            throw new IOException("MappedHashMap file is full: " + file);
+        }
+        if (end > mapped.capacity()) {
+            long newSize = mapped.capacity();
+            while (newSize < end) {
+                newSize <<= 1;
+            }
+            unmap(mapped);
+            map((int) Math.min(newSize, Integer.MAX_VALUE));
+        }
+        int offset = dataEnd;
+        dataEnd = (int) end;
+        return offset;
+    }
+
+    /**
+     * 将原来的桶数组扩容成2倍：在数据区末尾分配新数组，节点不移动，只修改 next
+     */
+    private void transfer() throws IOException {
+        int newLength = tableLength << 1;
+        int newOffset = allocate(newLength << 3);
+        for (int i = 0; i < tableLength; i++) {
+            int node = (int) mapped.getLong(tableOffset + (i << 3));
+            while (node != 0) {
+                int next = (int) mapped.getLong(node + NEXT_OFFSET);
+                int slot = newOffset + ((mapped.getInt(node + HASH_OFFSET) & (newLength - 1)) << 3);
+                mapped.putLong(node + NEXT_OFFSET, mapped.getLong(slot));
+                mapped.putLong(slot, node);
+                node = next;
+            }
+        }
+        garbage += (long) tableLength << 3;
+        tableOffset = newOffset;
+        tableLength = newLength;
+    }
+
+    private void writeHeader() {
+        mapped.putLong(TABLE_OFFSET_OFFSET, tableOffset);
+        mapped.putInt(TABLE_LENGTH_OFFSET, tableLength);
+        mapped.putInt(SIZE_OFFSET, size);
+        mapped.putLong(DATA_END_OFFSET, dataEnd);
+        mapped.putLong(GARBAGE_OFFSET, garbage);
+    }
+
+    private void map(int fileSize) throws IOException {
+        //新映射的区域超出文件长度时文件会自动变长，新增部分为 0
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+    }
+
+    private int serializeKey(K key) {
+        int len = keySerializer.size(key);
+        if (keyBuf.capacity() < len) {
+            keyBuf = ByteBuffer.allocate(Math.max(len, keyBuf.capacity() << 1));
+        }
+        keyBuf.clear();
+        keySerializer.write(key, keyBuf);
+        if (keyBuf.position() != len) {
+            throw new IllegalStateException("serializer wrote " + keyBuf.position() + " bytes, expected " + len);
+        }
+        return len;
+    }
+
+    private void ensureOpen() {
+        if (mapped == null) {
+            throw new IllegalStateException("map is closed");
+        }
+    }
+
+    /**
+     * 主动释放映射，不等 GC；java 9 以上使用 Unsafe.invokeCleaner，java 8 使用 DirectBuffer.cleaner()
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Method invokeCleaner = UnsafeUtils.getUnsafe().getClass().getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(UnsafeUtils.getUnsafe(), buffer);
+        } catch (NoSuchMethodException e) {
+            try {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (Exception ignore) {
+                //释放失败就交给 GC
+            }
+        } catch (Exception ignore) {
+            //释放失败就交给 GC
+        }
+    }
+
+    /**
+     * 按 key 序列化后的字节计算 hash，不依赖 hashCode()，重启后也不会变，再用与 HashMap7 相同的扰动函数
+     */
+    private static int hash(byte[] bytes, int len) {
+        int h = 1;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+}
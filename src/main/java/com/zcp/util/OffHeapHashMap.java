@@ -0,0 +1,348 @@
+package com.zcp.util;
+
+import sun.misc.Unsafe;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：堆外哈希表 数组+单链表，桶数组和所有节点都通过 Unsafe 分配在堆外内存
+ * 节点布局：| next(8) | hash(4) | keyLen(4) | valLen(4) | padding(4) | key bytes | val bytes |
+ * 节点头补齐到 24 字节，allocateMemory 返回的地址按 8 字节对齐，所以 key 也从 8 字节对齐的地址开始，按 8 字节比较时不会出现非对齐读
+ * key、value 通过 Serializer 转成字节存放，key 按字节比较是否相等，堆上只剩下这个对象和两个序列化用的缓冲区，
+ * 不论存放多少元素都不会给 GC 增加负担；用完必须调用 close() 释放内存，非线程安全
+ * @version:
+ */
+public class OffHeapHashMap<K, V> implements Closeable {
+
+    private final static int NEXT_OFFSET = 0;
+    private final static int HASH_OFFSET = 8;
+    private final static int KEY_LEN_OFFSET = 12;
+    private final static int VAL_LEN_OFFSET = 16;
+    private final static int HEADER_SIZE = 24;
+
+    /**
+     * 数组默认大小
+     */
+    private final static int INIT_ARRAY_SIZE = 8;
+
+    /**
+     * 扩容因子
+     */
+    private final static float FACTOR = 0.75f;
+
+    static final Unsafe unsafe = UnsafeUtils.getUnsafe();
+    private static final long BYTE_ARRAY_OFFSET = unsafe.arrayBaseOffset(byte[].class);
+
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valSerializer;
+
+    /**
+     * 堆外桶数组的地址，每个桶 8 字节，存放链表头节点的地址，0 表示空
+     */
+    private long array;
+    private int length;
+
+    private int size;
+
+    /**
+     * 已分配的堆外内存字节数
+     */
+    private long allocated;
+
+    /**
+     * 序列化 key、value 时复用的缓冲区
+     */
+    private ByteBuffer keyBuf = ByteBuffer.allocate(64);
+    private ByteBuffer valBuf = ByteBuffer.allocate(64);
+
+    public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valSerializer) {
+        this(keySerializer, valSerializer, INIT_ARRAY_SIZE);
+    }
+
+    /**
+     * @param capacity 预计存放的元素个数
+     */
+    public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valSerializer, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        this.keySerializer = keySerializer;
+        this.valSerializer = valSerializer;
+        int n = INIT_ARRAY_SIZE;
+        while (n < capacity / FACTOR && n < (1 << 30)) {
+            n <<= 1;
+        }
+        this.array = allocateArray(n);
+        this.length = n;
+    }
+
+    public void put(K key, V val) {
+        ensureOpen();
+        int keyLen = serialize(key, keySerializer, true);
+        int valLen = serialize(val, valSerializer, false);
+        int hash = hash(keyBuf.array(), keyLen);
+        long slot = array + ((long) (hash & (length - 1)) << 3);
+        long pre = 0;
+        for (long node = unsafe.getLong(slot); node != 0; pre = node, node = unsafe.getLong(node + NEXT_OFFSET)) {
+            if (matches(node, hash, keyLen)) {
+                //已存在：长度相同直接覆盖，否则重新分配节点替换
+                if (unsafe.getInt(node + VAL_LEN_OFFSET) == valLen) {
+                    copyIn(valBuf.array(), node + HEADER_SIZE + keyLen, valLen);
+                    return;
+                }
+                long newNode = newNode(hash, keyLen, valLen);
+                unsafe.putLong(newNode + NEXT_OFFSET, unsafe.getLong(node + NEXT_OFFSET));
+                if (pre == 0) {
+                    unsafe.putLong(slot, newNode);
+                } else {
+                    unsafe.putLong(pre + NEXT_OFFSET, newNode);
+                }
+                freeNode(node);
+                return;
+            }
+        }
+        //不存在，头插法插入新的节点
+        long newNode = newNode(hash, keyLen, valLen);
+        unsafe.putLong(newNode + NEXT_OFFSET, unsafe.getLong(slot));
+        unsafe.putLong(slot, newNode);
+        if (++size > length * FACTOR) {
+            transfer();//扩容
+        }
+    }
+
+    public V get(K key) {
+        if (key == null) {
+            throw new RuntimeException("key is null");
+        }
+        ensureOpen();
+        long node = find(key);
+        if (node == 0) {
+            return null;
+        }
+        return readVal(node);
+    }
+
+    public boolean containsKey(K key) {
+        ensureOpen();
+        return find(key) != 0;
+    }
+
+    public V remove(K key) {
+        ensureOpen();
+        int keyLen = serialize(key, keySerializer, true);
+        int hash = hash(keyBuf.array(), keyLen);
+        long slot = array + ((long) (hash & (length - 1)) << 3);
+        long pre = 0;
+        for (long node = unsafe.getLong(slot); node != 0; pre = node, node = unsafe.getLong(node + NEXT_OFFSET)) {
+            if (matches(node, hash, keyLen)) {
+                long next = unsafe.getLong(node + NEXT_OFFSET);
+                if (pre == 0) {
+                    //删除头节点
+                    unsafe.putLong(slot, next);
+                } else {
+                    unsafe.putLong(pre + NEXT_OFFSET, next);
+                }
+                V old = readVal(node);
+                freeNode(node);
+                size--;
+                return old;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 当前占用的堆外内存字节数（桶数组 + 所有节点）
+     */
+    public long offHeapBytes() {
+        return allocated;
+    }
+
+    public void clear() {
+        ensureOpen();
+        freeAllNodes();
+        unsafe.setMemory(array, (long) length << 3, (byte) 0);
+        size = 0;
+    }
+
+    /**
+     * 释放所有堆外内存，之后不能再使用
+     */
+    @Override
+    public void close() {
+        if (array == 0) {
+            return;
+        }
+        freeAllNodes();
+        unsafe.freeMemory(array);
+        allocated -= (long) length << 3;
+        array = 0;
+        size = 0;
+    }
+
+    private long find(K key) {
+        int keyLen = serialize(key, keySerializer, true);
+        int hash = hash(keyBuf.array(), keyLen);
+        long node = unsafe.getLong(array + ((long) (hash & (length - 1)) << 3));
+        while (node != 0) {
+            if (matches(node, hash, keyLen)) {
+                return node;
+            }
+            node = unsafe.getLong(node + NEXT_OFFSET);
+        }
+        return 0;
+    }
+
+    /**
+     * 把节点中的 value 复制到堆上再反序列化
+     */
+    private V readVal(long node) {
+        int keyLen = unsafe.getInt(node + KEY_LEN_OFFSET);
+        int valLen = unsafe.getInt(node + VAL_LEN_OFFSET);
+        byte[] bytes = new byte[valLen];
+        unsafe.copyMemory(null, node + HEADER_SIZE + keyLen, bytes, BYTE_ARRAY_OFFSET, valLen);
+        return valSerializer.read(ByteBuffer.wrap(bytes), valLen);
+    }
+
+    /**
+     * 节点的 key 是否与 keyBuf 中的 key 相同：先比 hash 和长度，再按 8 字节一组比较内容
+     */
+    private boolean matches(long node, int hash, int keyLen) {
+        if (unsafe.getInt(node + HASH_OFFSET) != hash || unsafe.getInt(node + KEY_LEN_OFFSET) != keyLen) {
+            return false;
+        }
+        byte[] bytes = keyBuf.array();
+        long address = node + HEADER_SIZE;
+        int i = 0;
+        for (; i + 8 <= keyLen; i += 8) {
+            if (unsafe.getLong(address + i) != unsafe.getLong(bytes, BYTE_ARRAY_OFFSET + i)) {
+                return false;
+            }
+        }
+        for (; i < keyLen; i++) {
+            if (unsafe.getByte(address + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 把 keyBuf、valBuf 中的内容复制到新分配的节点中
+     */
+    private long newNode(int hash, int keyLen, int valLen) {
+        long bytes = HEADER_SIZE + (long) keyLen + valLen;
+        long node = unsafe.allocateMemory(bytes);
+        allocated += bytes;
+        unsafe.putLong(node + NEXT_OFFSET, 0L);
+        unsafe.putInt(node + HASH_OFFSET, hash);
+        unsafe.putInt(node + KEY_LEN_OFFSET, keyLen);
+        unsafe.putInt(node + VAL_LEN_OFFSET, valLen);
+        copyIn(keyBuf.array(), node + HEADER_SIZE, keyLen);
+        copyIn(valBuf.array(), node + HEADER_SIZE + keyLen, valLen);
+        return node;
+    }
+
+    private void freeNode(long node) {
+        allocated -= HEADER_SIZE + (long) unsafe.getInt(node + KEY_LEN_OFFSET) + unsafe.getInt(node + VAL_LEN_OFFSET);
+        unsafe.freeMemory(node);
+    }
+
+    private void freeAllNodes() {
+        for (int i = 0; i < length; i++) {
+            long node = unsafe.getLong(array + ((long) i << 3));
+            while (node != 0) {
+                long next = unsafe.getLong(node + NEXT_OFFSET);
+                freeNode(node);
+                node = next;
+            }
+        }
+    }
+
+    private static void copyIn(byte[] bytes, long address, int len) {
+        unsafe.copyMemory(bytes, BYTE_ARRAY_OFFSET, null, address, len);
+    }
+
+    private long allocateArray(int n) {
+        long bytes = (long) n << 3;
+        long address = unsafe.allocateMemory(bytes);
+        unsafe.setMemory(address, bytes, (byte) 0);
+        allocated += bytes;
+        return address;
+    }
+
+    /**
+     * 将原来的数组扩容成2倍，节点本身不移动，只修改 next 指针
+     */
+    private void transfer() {
+        int newLength = length << 1;
+        long newArray = allocateArray(newLength);
+        for (int i = 0; i < length; i++) {
+            long node = unsafe.getLong(array + ((long) i << 3));
+            while (node != 0) {
+                long next = unsafe.getLong(node + NEXT_OFFSET);
+                long slot = newArray + ((long) (unsafe.getInt(node + HASH_OFFSET) & (newLength - 1)) << 3);
+                unsafe.putLong(node + NEXT_OFFSET, unsafe.getLong(slot));
+                unsafe.putLong(slot, node);
+                node = next;
+            }
+        }
+        unsafe.freeMemory(array);
+        allocated -= (long) length << 3;
+        array = newArray;
+        length = newLength;
+    }
+
+    /**
+     * 序列化到 keyBuf 或 valBuf，缓冲区不够时扩大
+     *
+     * @return 字节数
+     */
+    private <T> int serialize(T t, Serializer<T> serializer, boolean isKey) {
+        int len = serializer.size(t);
+        ByteBuffer buf = isKey ? keyBuf : valBuf;
+        if (buf.capacity() < len) {
+            buf = ByteBuffer.allocate(Math.max(len, buf.capacity() << 1));
+            if (isKey) {
+                keyBuf = buf;
+            } else {
+                valBuf = buf;
+            }
+        }
+        buf.clear();
+        serializer.write(t, buf);
+        if (buf.position() != len) {
+            throw new IllegalStateException("serializer wrote " + buf.position() + " bytes, expected " + len);
+        }
+        return len;
+    }
+
+    private void ensureOpen() {
+        if (array == 0) {
+            throw new IllegalStateException("map is closed");
+        }
+    }
+
+    /**
+     * 按 key 序列化后的字节计算 hash，保证字节相同的 key hash 相同，再用与 HashMap7 相同的扰动函数
+     */
+    private static int hash(byte[] bytes, int len) {
+        int h = 1;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,330 @@
+package com.zcp.util;
+
+import java.util.function.BiConsumer;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：不可变（持久化）哈希表，结构为 HAMT（Hash Array Mapped Trie）
+ * hash 每 5 位为一层，每个节点用 32 位 bitmap 记录哪些分支存在，数组里只存放存在的分支，分支下标 = bitmap 中低于该位的 1 的个数；
+ * 分支要么是一个 key/value，要么是下一层节点。hash 完全相同的 key 放在 CollisionNode 里，逐个比较。
+ * put、remove 不修改当前对象，而是返回新的 map：只复制从根到目标位置路径上的节点（最多 7 层），其余节点与旧版本共享；
+ * 内容没有变化时（value 相同、key 不存在）直接返回当前对象。
+ * 任何版本都可以被多个线程无锁并发读取，旧版本的内容永远不会变化
+ * @version:
+ */
+public final class PersistentHashMap<K, V> {
+
+    private final static PersistentHashMap EMPTY = new PersistentHashMap(null, 0);
+
+    /**
+     * 查找时表示不存在，与 value 为 null 区分开
+     */
+    private final static Object NOT_FOUND = new Object();
+
+    private final Node root;
+
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public V get(K key) {
+        if (key == null) {
+            throw new RuntimeException("key is null");
+        }
+        Object v = root == null ? NOT_FOUND : root.find(0, hash(key), key);
+        return v == NOT_FOUND ? null : (V) v;
+    }
+
+    public V getOrDefault(K key, V defaultValue) {
+        Object v = root == null ? NOT_FOUND : root.find(0, hash(key), key);
+        return v == NOT_FOUND ? defaultValue : (V) v;
+    }
+
+    public boolean containsKey(K key) {
+        return root != null && root.find(0, hash(key), key) != NOT_FOUND;
+    }
+
+    /**
+     * @return 放入之后的新版本，当前版本不变；key 已经映射到同一个 value 时返回 this
+     */
+    public PersistentHashMap<K, V> put(K key, V val) {
+        boolean[] added = new boolean[1];
+        Node newRoot = (root == null ? BitmapNode.EMPTY : root).put(0, hash(key), key, val, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<K, V>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @return 删除之后的新版本，当前版本不变；key 不存在时返回 this
+     */
+    public PersistentHashMap<K, V> remove(K key) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.remove(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? PersistentHashMap.<K, V>empty() : new PersistentHashMap<K, V>(newRoot, size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<Object, Object>) action);
+        }
+    }
+
+    abstract static class Node {
+
+        /**
+         * @return value，不存在时返回 NOT_FOUND
+         */
+        abstract Object find(int shift, int hash, Object key);
+
+        /**
+         * @param added 新增了 key 时 added[0] 置为 true
+         * @return 新节点，没有变化时返回 this
+         */
+        abstract Node put(int shift, int hash, Object key, Object val, boolean[] added);
+
+        /**
+         * @return 新节点，没有变化时返回 this，删空了返回 null
+         */
+        abstract Node remove(int shift, int hash, Object key);
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+    }
+
+    /**
+     * array 中每个分支占两个位置：[key, value]，key 为 null 时 value 是下一层节点
+     */
+    final static class BitmapNode extends Node {
+
+        final static BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int i = index(bit);
+            Object k = array[i], v = array[i + 1];
+            if (k == null) {
+                return ((Node) v).find(shift + 5, hash, key);
+            }
+            return key.equals(k) ? v : NOT_FOUND;
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object val, boolean[] added) {
+            int bit = bit(hash, shift);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                //插入新的分支
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, i);
+                newArray[i] = key;
+                newArray[i + 1] = val;
+                System.arraycopy(array, i, newArray, i + 2, array.length - i);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+            Object k = array[i], v = array[i + 1];
+            if (k == null) {
+                Node sub = ((Node) v).put(shift + 5, hash, key, val, added);
+                return sub == v ? this : copyAndSet(i, null, sub);
+            }
+            if (key.equals(k)) {
+                return v == val ? this : copyAndSet(i, k, val);
+            }
+            //与已有的 key 落在同一个分支，下沉到下一层
+            added[0] = true;
+            return copyAndSet(i, null, createNode(shift + 5, k, v, hash, key, val));
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = index(bit);
+            Object k = array[i], v = array[i + 1];
+            if (k == null) {
+                Node sub = ((Node) v).remove(shift + 5, hash, key);
+                if (sub == v) {
+                    return this;
+                }
+                if (sub == null) {
+                    return removePair(bit, i);
+                }
+                //下一层只剩一个 key/value 时提到这一层
+                if (sub instanceof BitmapNode && ((BitmapNode) sub).array.length == 2 && ((BitmapNode) sub).array[0] != null) {
+                    return copyAndSet(i, ((BitmapNode) sub).array[0], ((BitmapNode) sub).array[1]);
+                }
+                return copyAndSet(i, null, sub);
+            }
+            return key.equals(k) ? removePair(bit, i) : this;
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1)) << 1;
+        }
+
+        private BitmapNode copyAndSet(int i, Object k, Object v) {
+            Object[] newArray = array.clone();
+            newArray[i] = k;
+            newArray[i + 1] = v;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        private BitmapNode removePair(int bit, int i) {
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, newArray.length - i);
+            return new BitmapNode(bitmap ^ bit, newArray);
+        }
+    }
+
+    /**
+     * hash 完全相同的 key，array 为 [k0, v0, k1, v1, ...]
+     */
+    final static class CollisionNode extends Node {
+
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int i = indexOf(key);
+            return i < 0 ? NOT_FOUND : array[i + 1];
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object val, boolean[] added) {
+            if (hash != this.hash) {
+                //hash 不同，在这一层包一个 BitmapNode 再放入
+                return new BitmapNode(bit(this.hash, shift), new Object[]{null, this}).put(shift, hash, key, val, added);
+            }
+            int i = indexOf(key);
+            Object[] newArray;
+            if (i >= 0) {
+                if (array[i + 1] == val) {
+                    return this;
+                }
+                newArray = array.clone();
+            } else {
+                newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, array.length);
+                newArray[i = array.length] = key;
+                added[0] = true;
+            }
+            newArray[i + 1] = val;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            if (array.length == 4) {
+                //只剩一个 key，变回普通分支，由上一层提上去
+                int other = i == 0 ? 2 : 0;
+                return new BitmapNode(bit(hash, shift), new Object[]{array[other], array[other + 1]});
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, newArray.length - i);
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept(array[i], array[i + 1]);
+            }
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 两个 key 在 shift 之前的层都相同，从 shift 这一层开始为它们建立节点
+     */
+    private static Node createNode(int shift, Object k1, Object v1, int h2, Object k2, Object v2) {
+        int h1 = hash(k1);
+        if (h1 == h2) {
+            return new CollisionNode(h1, new Object[]{k1, v1, k2, v2});
+        }
+        boolean[] added = new boolean[1];
+        return BitmapNode.EMPTY.put(shift, h1, k1, v1, added).put(shift, h2, k2, v2, added);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    /**
+     * 与 HashMap7 相同的扰动函数
+     */
+    private static int hash(Object o) {
+        int h;
+        return (h = o.hashCode()) ^ (h >>> 16);
+    }
+
+}
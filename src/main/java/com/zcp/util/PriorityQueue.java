@@ -1,12 +1,16 @@
 package com.zcp.util;
 
 import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 
 /**
  * @author ：ZCP
  * @date ：2021/9/15
  * @description：堆实现的优先级队列
+ * 默认是 4 叉堆：节点 i 的子节点是 i*arity+1 ~ i*arity+arity，在数组中连续存放，
+ * 层数比二叉堆少一半，向下调整时每层只访问一段相邻的内存；叉数可以通过构造方法指定，2 即为二叉堆
  * @version:
  */
 public class PriorityQueue<E> implements Queue<E> {
@@ -28,11 +32,21 @@ public class PriorityQueue<E> implements Queue<E> {
 
     private Comparator<E> comparator;
 
+    /**
+     * 每个节点的子节点个数
+     */
+    private int arity = DEFAULT_ARITY;
+
     /**
      * 默认的大小容量
      */
     private final static int DEFAULT_CAPACITY = 8;
 
+    /**
+     * 默认叉数，4 个引用的子节点正好落在同一个缓存行内
+     */
+    private final static int DEFAULT_ARITY = 4;
+
     public PriorityQueue() {
         this.capacity = DEFAULT_CAPACITY;
         this.queue = new Object[capacity];
@@ -55,6 +69,38 @@ public class PriorityQueue<E> implements Queue<E> {
         this.comparator = comparator;
     }
 
+    /**
+     * @param arity 每个节点的子节点个数，>= 2
+     */
+    public PriorityQueue(int size, Comparator comparator, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("arity < 2");
+        }
+        this.capacity = size;
+        this.queue = new Object[capacity];
+        this.comparator = comparator;
+        this.arity = arity;
+    }
+
+    /**
+     * 一次性拷贝所有元素，再自底向上建堆，O(n)
+     */
+    public PriorityQueue(Collection<? extends E> c) {
+        this((E[]) c.toArray(), null);
+    }
+
+    public PriorityQueue(Collection<? extends E> c, Comparator comparator) {
+        this((E[]) c.toArray(), comparator);
+    }
+
+    public PriorityQueue(E[] elements, Comparator comparator) {
+        this.comparator = comparator;
+        this.capacity = Math.max(elements.length, DEFAULT_CAPACITY);
+        this.queue = Arrays.copyOf(elements, capacity, Object[].class);
+        this.size = elements.length;
+        heapifyAll();
+    }
+
     public Object[] getQueue() {
         return queue;
     }
@@ -74,49 +120,31 @@ public class PriorityQueue<E> implements Queue<E> {
     }
 
     /**
-     * 对指定下标位置的元素进行 调整
+     * 对指定下标位置的元素向上调整，沿途的父节点依次下移，最后一次性放入
      *
      * @param index 可以不加这个参数，这是为了方便以后做加强堆
      */
     private void heapInsert(int index) {
-        int pIndex = (index - 1) / 2;
-        if (comparator != null) {
-            //自带比较器的比较
-            while (pIndex > 0) {
-                //只要满足 index > 0  并且 当前节点 比 父节点小，交换
-                if (comparator.compare((E) queue[index], (E) queue[pIndex]) >= 0) {
-                    break;
-                }
-                swap(index, pIndex);
-                index = pIndex;
-                pIndex = (index - 1) / 2;
-            }
-            if (comparator.compare((E) queue[index], (E) queue[pIndex]) < 0) {
-                swap(index, pIndex);
-            }
-        } else {
-            //不带比较器的比较
-            while (pIndex > 0) {
-                Comparable<? super E> key = (Comparable<? super E>) queue[index];
-                if (key.compareTo((E) queue[pIndex]) >= 0) {
-                    break;
-                }
-                swap(index, pIndex);
-                index = pIndex;
-                pIndex = (index - 1) / 2;
-            }
-            Comparable<? super E> key = (Comparable<? super E>) queue[index];
+        Object x = queue[index];
+        while (index > 0) {
+            int pIndex = (index - 1) / arity;
             Object parent = queue[pIndex];
-            if (key.compareTo((E) parent) < 0) {
-                swap(index, pIndex);
+            if (compare(x, parent) >= 0) {
+                break;
             }
+            queue[index] = parent;
+            index = pIndex;
         }
+        queue[index] = x;
     }
 
-    private void swap(int i, int j) {
-        Object tmp = queue[i];
-        queue[i] = queue[j];
-        queue[j] = tmp;
+    private int compare(Object a, Object b) {
+        if (comparator != null) {
+            //自带比较器的比较
+            return comparator.compare((E) a, (E) b);
+        }
+        //不带比较器的比较
+        return ((Comparable<? super E>) a).compareTo((E) b);
     }
 
     @Override
@@ -129,6 +157,54 @@ public class PriorityQueue<E> implements Queue<E> {
         return true;
     }
 
+    /**
+     * 批量加入，容量不够时扩容
+     *
+     * @return 队列是否发生了变化
+     */
+    public boolean addAll(Collection<? extends E> c) {
+        return addAll((E[]) c.toArray());
+    }
+
+    /**
+     * 先整体拷贝到堆数组末尾，再选择调整方式：新元素较少时逐个向上调整，O(k log n)；
+     * 较多时整体重新建堆，O(n)
+     */
+    public boolean addAll(E[] elements) {
+        int n = elements.length;
+        if (n == 0) {
+            return false;
+        }
+        int oldSize = size;
+        int newSize = oldSize + n;
+        if (newSize < 0) {
+            throw new OutOfMemoryError("队列元素个数溢出");
+        }
+        if (newSize > capacity) {
+            capacity = Math.max(newSize, capacity << 1);
+            queue = Arrays.copyOf(queue, capacity);
+        }
+        System.arraycopy(elements, 0, queue, oldSize, n);
+        size = newSize;
+        if ((long) n * (32 - Integer.numberOfLeadingZeros(newSize)) >= newSize) {
+            heapifyAll();
+        } else {
+            for (int i = oldSize; i < newSize; i++) {
+                heapInsert(i);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Floyd 建堆：从最后一个非叶子节点开始依次向下调整
+     */
+    private void heapifyAll() {
+        for (int i = (size - 2) / arity; i >= 0; i--) {
+            heapify(i);
+        }
+    }
+
     /**
      * 扩容
      */
@@ -159,52 +235,53 @@ public class PriorityQueue<E> implements Queue<E> {
      */
     private E dequeue() {
         Object ans = queue[0];
-        //头 和 尾交换  然后 heapify
-        swap(--size, 0);
-        heapify(0);
+        //尾元素放到头部 然后 heapify，原来的尾部置空
+        Object last = queue[--size];
+        queue[size] = null;
+        if (size > 0) {
+            queue[0] = last;
+            heapify(0);
+        }
         return (E) ans;
     }
 
     /**
-     * 向下调整
+     * 向下调整：在 arity 个连续存放的子节点中找出最小的一个，比当前元素小就上移，
+     * 子节点在数组中相邻，一次调整只会访问一到两个缓存行
      *
      * @param index
      */
     private void heapify(int index) {
-        int left = index * 2 + 1;
-        if (comparator != null) {
-            //自带比较器的比较
-            while (left < size) {
-                int right = left + 1;
-                if (right < size && comparator.compare((E) queue[right], (E) queue[left]) < 0 && comparator.compare((E) queue[right], (E) queue[index]) < 0) {
-                    swap(right, index);
-                    index = right;
-                } else if (comparator.compare((E) queue[left], (E) queue[index]) < 0) {
-                    swap(left, index);
-                    index = left;
-                } else {
-                    //index 优先于 left和right
-                    break;
+        Object x = queue[index];
+        long child;
+        while ((child = (long) index * arity + 1) < size) {
+            int min = (int) child;
+            int end = (int) Math.min(child + arity, size);
+            for (int c = min + 1; c < end; c++) {
+                if (compare(queue[c], queue[min]) < 0) {
+                    min = c;
                 }
-                left = index * 2 + 1;
             }
-        } else {
-            //不带比较器的比较
-            while (left < size) {
-                int right = left + 1;
-                Comparable<? super E> leftKey = (Comparable<? super E>) queue[left];
-                if (right < size && ((Comparable<? super E>) queue[right]).compareTo((E) queue[left]) < 0 && ((Comparable<? super E>) queue[right]).compareTo((E) queue[index]) < 0) {
-                    swap(right, index);
-                    index = right;
-                } else if (leftKey.compareTo((E) queue[index]) < 0) {
-                    swap(left, index);
-                    index = left;
-                } else {
-                    break;
-                }
-                left = index * 2 + 1;
+            if (compare(queue[min], x) >= 0) {
+                //index 优先于所有子节点
+                break;
             }
+            queue[index] = queue[min];
+            index = min;
         }
+        queue[index] = x;
+    }
+
+    /**
+     * 用 o 替换堆顶并向下调整，等价于 poll() 再 offer(o)，但只调整一次，队列不能为空
+     *
+     * @return 原来的堆顶
+     */
+    E replaceTop(E o) {
+        Object top = queue[0];
+        queue[0] = o;
+        heapify(0);
+        return (E) top;
     }
 
     @Override
@@ -229,5 +306,23 @@ public class PriorityQueue<E> implements Queue<E> {
         return capacity;
     }
 
+    public int getArity() {
+        return arity;
+    }
+
+    /**
+     * 直接接管一个已经满足堆序的数组（例如从快照恢复），不再逐个调整
+     *
+     * @param heap 前 size 个元素按当前的叉数满足堆序，长度即为容量
+     */
+    void adopt(Object[] heap, int size) {
+        if (size > heap.length) {
+            throw new IllegalArgumentException("size > heap.length");
+        }
+        this.queue = heap;
+        this.capacity = heap.length;
+        this.size = size;
+    }
+
 
 }
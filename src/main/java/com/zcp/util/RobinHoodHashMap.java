@@ -0,0 +1,218 @@
+package com.zcp.util;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：开放寻址 + Robin Hood 探测的哈希表，API 与 HashMap7 保持一致
+ * 不再为每个元素创建 Node，hash、key、value 分别放在三个平铺的数组里，
+ * 查找时顺序扫描相邻槽位，对 CPU 缓存更友好，也能在更高的负载因子下工作
+ * @version:
+ */
+public class RobinHoodHashMap<K, V> {
+
+    /**
+     * 每个槽位的 hash，0 表示空槽（真实 hash 为 0 时会被改成 1，见 hash 方法）
+     */
+    private int[] hashes;
+
+    private Object[] keys;
+
+    private Object[] vals;
+
+    /**
+     * 数组默认大小
+     */
+    private final static int INIT_ARRAY_SIZE = 8;
+
+    /**
+     * 扩容因子，Robin Hood 让探测长度的方差很小，所以可以比 HashMap7 的 0.75 更高
+     */
+    private final static float FACTOR = 0.875f;
+
+    private int size;
+
+    /**
+     * 超过该值就扩容
+     */
+    private int threshold;
+
+    public RobinHoodHashMap() {
+        this(INIT_ARRAY_SIZE);
+    }
+
+    /**
+     * @param capacity 预计存放的元素个数，会向上取到 2 的幂并考虑扩容因子
+     */
+    public RobinHoodHashMap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        init(tableSizeFor((int) Math.ceil(capacity / FACTOR)));
+    }
+
+    private void init(int length) {
+        hashes = new int[length];
+        keys = new Object[length];
+        vals = new Object[length];
+        threshold = (int) (length * FACTOR);
+    }
+
+    public void put(K key, V val) {
+        int hash = hash(key);
+        int index = find(hash, key);
+        if (index >= 0) {
+            //已存在直接 修改值
+            vals[index] = val;
+            return;
+        }
+        if (size >= threshold) {
+            transfer();//扩容
+        }
+        insert(hash, key, val);
+        size++;
+    }
+
+    public V get(K key) {
+        if (key == null) {
+            throw new RuntimeException("key is null");
+        }
+        int index = find(hash(key), key);
+        return index < 0 ? null : (V) vals[index];
+    }
+
+    public boolean containsKey(K key) {
+        return find(hash(key), key) >= 0;
+    }
+
+    public V remove(K key) {
+        int index = find(hash(key), key);
+        if (index < 0) {
+            return null;
+        }
+        V old = (V) vals[index];
+        //backward shift：把后面探测距离 > 0 的元素依次往前挪一格，不需要墓碑
+        int mask = hashes.length - 1;
+        int next = (index + 1) & mask;
+        while (hashes[next] != 0 && distance(hashes[next], next, mask) > 0) {
+            hashes[index] = hashes[next];
+            keys[index] = keys[next];
+            vals[index] = vals[next];
+            index = next;
+            next = (next + 1) & mask;
+        }
+        hashes[index] = 0;
+        keys[index] = null;
+        vals[index] = null;
+        size--;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            init(hashes.length);
+            size = 0;
+        }
+    }
+
+    /**
+     * 查找 key 所在的槽位
+     * Robin Hood 的性质：同一条探测链上的元素按照探测距离有序，
+     * 一旦当前槽位的元素比我们"更富"（距离更短），说明 key 一定不存在，可以提前结束
+     *
+     * @return 槽位下标，不存在返回 -1
+     */
+    private int find(int hash, Object key) {
+        int mask = hashes.length - 1;
+        int index = hash & mask;
+        for (int dist = 0; ; dist++) {
+            int h = hashes[index];
+            if (h == 0 || distance(h, index, mask) < dist) {
+                return -1;
+            }
+            if (h == hash && keys[index].equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * 插入一个确定不存在的 key，劫富济贫：遇到距离比自己短的元素就交换位置，继续为被换出的元素找位置
+     */
+    private void insert(int hash, Object key, Object val) {
+        int mask = hashes.length - 1;
+        int index = hash & mask;
+        int dist = 0;
+        for (; ; ) {
+            int h = hashes[index];
+            if (h == 0) {
+                hashes[index] = hash;
+                keys[index] = key;
+                vals[index] = val;
+                return;
+            }
+            int existing = distance(h, index, mask);
+            if (existing < dist) {
+                hashes[index] = hash;
+                hash = h;
+                Object k = keys[index];
+                keys[index] = key;
+                key = k;
+                Object v = vals[index];
+                vals[index] = val;
+                val = v;
+                dist = existing;
+            }
+            index = (index + 1) & mask;
+            dist++;
+        }
+    }
+
+    /**
+     * 槽位 index 上的元素距离其理想位置的探测距离
+     */
+    private static int distance(int hash, int index, int mask) {
+        return (index - (hash & mask)) & mask;
+    }
+
+    /**
+     * 将原来的数组扩容成2倍，hash 已经缓存，不需要再调用 hashCode()
+     */
+    private void transfer() {
+        int[] oldHashes = hashes;
+        Object[] oldKeys = keys;
+        Object[] oldVals = vals;
+        init(oldHashes.length << 1);
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != 0) {
+                insert(oldHashes[i], oldKeys[i], oldVals[i]);
+            }
+        }
+    }
+
+    private static int tableSizeFor(int c) {
+        int n = INIT_ARRAY_SIZE;
+        while (n < c && n < (1 << 30)) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * 与 HashMap7 相同的扰动函数，0 被保留用来表示空槽
+     */
+    private static int hash(Object o) {
+        int h;
+        h = (h = o.hashCode()) ^ (h >>> 16);
+        return h == 0 ? 1 : h;
+    }
+
+}
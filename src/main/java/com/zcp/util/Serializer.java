@@ -0,0 +1,113 @@
+package com.zcp.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：对象与字节之间的转换，堆外存储、文件存储等需要把 key/value 变成字节的地方使用
+ * @version:
+ */
+public interface Serializer<T> {
+
+    /**
+     * 序列化之后的字节数
+     */
+    int size(T t);
+
+    /**
+     * 从 buf 的当前位置开始写入，恰好写入 size(t) 个字节
+     */
+    void write(T t, ByteBuffer buf);
+
+    /**
+     * 从 buf 的当前位置开始读取 length 个字节
+     */
+    T read(ByteBuffer buf, int length);
+
+    Serializer<String> STRING = new Serializer<String>() {
+        @Override
+        public int size(String s) {
+            //纯 ASCII 时字节数等于长度，不需要先编码一遍
+            int n = s.length();
+            for (int i = 0; i < n; i++) {
+                if (s.charAt(i) >= 0x80) {
+                    return s.getBytes(StandardCharsets.UTF_8).length;
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public void write(String s, ByteBuffer buf) {
+            buf.put(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String read(ByteBuffer buf, int length) {
+            if (buf.hasArray()) {
+                String s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+                buf.position(buf.position() + length);
+                return s;
+            }
+            byte[] bytes = new byte[length];
+            buf.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    Serializer<Integer> INTEGER = new Serializer<Integer>() {
+        @Override
+        public int size(Integer i) {
+            return 4;
+        }
+
+        @Override
+        public void write(Integer i, ByteBuffer buf) {
+            buf.putInt(i);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buf, int length) {
+            return buf.getInt();
+        }
+    };
+
+    Serializer<Long> LONG = new Serializer<Long>() {
+        @Override
+        public int size(Long l) {
+            return 8;
+        }
+
+        @Override
+        public void write(Long l, ByteBuffer buf) {
+            buf.putLong(l);
+        }
+
+        @Override
+        public Long read(ByteBuffer buf, int length) {
+            return buf.getLong();
+        }
+    };
+
+    Serializer<byte[]> BYTES = new Serializer<byte[]>() {
+        @Override
+        public int size(byte[] bytes) {
+            return bytes.length;
+        }
+
+        @Override
+        public void write(byte[] bytes, ByteBuffer buf) {
+            buf.put(bytes);
+        }
+
+        @Override
+        public byte[] read(ByteBuffer buf, int length) {
+            byte[] bytes = new byte[length];
+            buf.get(bytes);
+            return bytes;
+        }
+    };
+
+}
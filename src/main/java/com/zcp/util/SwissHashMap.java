@@ -0,0 +1,280 @@
+package com.zcp.util;
+
+import sun.misc.Unsafe;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：SwissTable 风格的开放寻址哈希表，API 与 HashMap7 保持一致
+ * 每 16 个槽位为一组，每个槽位额外有 1 字节的控制字节：空槽 0x80、墓碑 0xFE、有元素时存放 hash 的低 7 位（H2）
+ * 查找时先用 hash 的高位（H1）定位到组，把一组的 16 个控制字节当作两个 long 读出来，
+ * 用 SWAR（寄存器内的 SIMD）一次比较出所有 H2 相同的槽位，只对这些槽位调用 equals；
+ * 组内有空槽说明探测链到此结束，否则按三角数序列探测下一组。装载因子 7/8，非线程安全
+ * @version:
+ */
+public class SwissHashMap<K, V> {
+
+    /**
+     * 控制字节：空槽
+     */
+    private final static byte EMPTY = (byte) 0x80;
+
+    /**
+     * 控制字节：墓碑，删除后探测链不能在这里断开
+     */
+    private final static byte DELETED = (byte) 0xFE;
+
+    /**
+     * 每组的槽位数
+     */
+    private final static int GROUP_SIZE = 16;
+
+    private final static long LSB = 0x0101010101010101L;
+    private final static long MSB = 0x8080808080808080L;
+
+    /**
+     * 数组默认大小
+     */
+    private final static int INIT_ARRAY_SIZE = GROUP_SIZE;
+
+    static final Unsafe unsafe = UnsafeUtils.getUnsafe();
+    private static final long BYTE_ARRAY_OFFSET = unsafe == null ? 0 : unsafe.arrayBaseOffset(byte[].class);
+
+    /**
+     * 拿不到 Unsafe 时逐字节拼出 long
+     */
+    private static final boolean SCALAR = unsafe == null;
+
+    private static final boolean BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
+    private byte[] ctrl;
+
+    private Object[] keys;
+
+    private Object[] vals;
+
+    private int size;
+
+    /**
+     * 还能占用多少个空槽，墓碑也算作占用，降到 0 时重新哈希
+     */
+    private int growthLeft;
+
+    public SwissHashMap() {
+        this(0);
+    }
+
+    /**
+     * @param capacity 预计存放的元素个数，会向上取到 16 的 2 的幂倍并考虑装载因子
+     */
+    public SwissHashMap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        init(tableSizeFor((int) Math.min((capacity * 8L + 6) / 7, 1 << 30)));
+    }
+
+    private void init(int length) {
+        ctrl = new byte[length];
+        Arrays.fill(ctrl, EMPTY);
+        keys = new Object[length];
+        vals = new Object[length];
+        growthLeft = maxLoad(length) - size;
+    }
+
+    public void put(K key, V val) {
+        int hash = hash(key);
+        int index = find(hash, key);
+        if (index >= 0) {
+            //已存在直接 修改值
+            vals[index] = val;
+            return;
+        }
+        index = findInsertSlot(hash);
+        if (growthLeft == 0 && ctrl[index] == EMPTY) {
+            //墓碑较多时原地重新哈希清掉墓碑，否则扩容
+            rehash(size < maxLoad(ctrl.length) / 2 ? ctrl.length : ctrl.length << 1);
+            index = findInsertSlot(hash);
+        }
+        if (ctrl[index] == EMPTY) {
+            growthLeft--;
+        }
+        ctrl[index] = (byte) (hash & 0x7F);
+        keys[index] = key;
+        vals[index] = val;
+        size++;
+    }
+
+    public V get(K key) {
+        if (key == null) {
+            throw new RuntimeException("key is null");
+        }
+        int index = find(hash(key), key);
+        return index < 0 ? null : (V) vals[index];
+    }
+
+    public boolean containsKey(K key) {
+        return find(hash(key), key) >= 0;
+    }
+
+    public V remove(K key) {
+        int index = find(hash(key), key);
+        if (index < 0) {
+            return null;
+        }
+        V old = (V) vals[index];
+        int base = index & -GROUP_SIZE;
+        //组内还有空槽说明没有探测链经过这一组，可以直接置空，否则留下墓碑
+        if (matchEmpty(load(base)) != 0 || matchEmpty(load(base + 8)) != 0) {
+            ctrl[index] = EMPTY;
+            growthLeft++;
+        } else {
+            ctrl[index] = DELETED;
+        }
+        keys[index] = null;
+        vals[index] = null;
+        size--;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+        init(ctrl.length);
+    }
+
+    /**
+     * 查找 key 所在的槽位
+     *
+     * @return 槽位下标，不存在返回 -1
+     */
+    private int find(int hash, Object key) {
+        long h2 = LSB * (hash & 0x7F);
+        int groupMask = (ctrl.length >>> 4) - 1;
+        int group = (hash >>> 7) & groupMask;
+        for (int step = 1; ; step++) {
+            int base = group << 4;
+            long lo = load(base);
+            long hi = load(base + 8);
+            for (long m = match(lo, h2); m != 0; m &= m - 1) {
+                int index = base + (Long.numberOfTrailingZeros(m) >>> 3);
+                if (key.equals(keys[index])) {
+                    return index;
+                }
+            }
+            for (long m = match(hi, h2); m != 0; m &= m - 1) {
+                int index = base + 8 + (Long.numberOfTrailingZeros(m) >>> 3);
+                if (key.equals(keys[index])) {
+                    return index;
+                }
+            }
+            if (matchEmpty(lo) != 0 || matchEmpty(hi) != 0) {
+                return -1;
+            }
+            //三角数探测：组数是 2 的幂时可以遍历到所有组
+            group = (group + step) & groupMask;
+        }
+    }
+
+    /**
+     * 沿探测链找到第一个空槽或墓碑
+     */
+    private int findInsertSlot(int hash) {
+        int groupMask = (ctrl.length >>> 4) - 1;
+        int group = (hash >>> 7) & groupMask;
+        for (int step = 1; ; step++) {
+            int base = group << 4;
+            long m = load(base) & MSB;
+            if (m != 0) {
+                return base + (Long.numberOfTrailingZeros(m) >>> 3);
+            }
+            m = load(base + 8) & MSB;
+            if (m != 0) {
+                return base + 8 + (Long.numberOfTrailingZeros(m) >>> 3);
+            }
+            group = (group + step) & groupMask;
+        }
+    }
+
+    /**
+     * 按新的大小重新放置所有元素，同时清掉墓碑
+     */
+    private void rehash(int length) {
+        byte[] oldCtrl = ctrl;
+        Object[] oldKeys = keys;
+        Object[] oldVals = vals;
+        init(length);
+        for (int i = 0; i < oldCtrl.length; i++) {
+            if (oldCtrl[i] >= 0) {
+                int hash = hash(oldKeys[i]);
+                int index = findInsertSlot(hash);
+                ctrl[index] = (byte) (hash & 0x7F);
+                keys[index] = oldKeys[i];
+                vals[index] = oldVals[i];
+            }
+        }
+    }
+
+    /**
+     * 读出从 index 开始的 8 个控制字节，第 i 个字节在 long 的第 i 个字节（从低位数）
+     */
+    private long load(int index) {
+        if (SCALAR) {
+            long w = 0;
+            for (int i = 7; i >= 0; i--) {
+                w = (w << 8) | (ctrl[index + i] & 0xFFL);
+            }
+            return w;
+        }
+        long w = unsafe.getLong(ctrl, BYTE_ARRAY_OFFSET + index);
+        return BIG_ENDIAN ? Long.reverseBytes(w) : w;
+    }
+
+    /**
+     * 8 个控制字节中等于 h2 的字节，对应字节的最高位置 1
+     * 经典的 "haszero" 技巧：异或后等于 0 的字节减 1 会借位使最高位变成 1；
+     * 借位可能让真正匹配的字节之上的字节误报，调用方反正要比较 key，误报没有影响
+     */
+    private static long match(long w, long h2) {
+        long x = w ^ h2;
+        return (x - LSB) & ~x & MSB;
+    }
+
+    /**
+     * 8 个控制字节中的空槽：最高位为 1 且第 1 位为 0 的只有 EMPTY(0x80)，DELETED(0xFE) 的第 1 位为 1
+     */
+    private static long matchEmpty(long w) {
+        return w & (~w << 6) & MSB;
+    }
+
+    private static int maxLoad(int length) {
+        return length - (length >>> 3);
+    }
+
+    private static int tableSizeFor(int c) {
+        int n = INIT_ARRAY_SIZE;
+        while (n < c && n < (1 << 30)) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * H1 取高位、H2 取低 7 位，两部分都要足够随机，所以在 HashMap7 的扰动函数之前先乘一个奇数常量打散
+     */
+    private static int hash(Object o) {
+        int h = o.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.zcp.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collector;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：流式选出最大的 k 个元素，基于 PriorityQueue
+ * 1.内部是容量固定为 k 的小根堆，堆顶是当前保留的最小元素；堆满之后，新元素只和堆顶比较一次，
+ * 不比堆顶大的直接丢弃，比堆顶大的替换堆顶再向下调整一次，整体 O(n log k)，内存只有 O(k)
+ * 2.toSortedList() 按从大到小返回结果
+ * 3.collector() 可以用于并行流：每个线程维护自己的堆，合并时把小的堆逐个放入大的堆
+ * 元素不能为 null
+ * @version:
+ */
+public class TopK<E> {
+
+    private final int k;
+
+    private final Comparator<? super E> comparator;
+
+    private final PriorityQueue<E> heap;
+
+    /**
+     * 堆的初始容量上限，k 很大时按需扩容
+     */
+    private final static int MAX_INIT_CAPACITY = 1 << 10;
+
+    /**
+     * 按元素的自然顺序
+     */
+    public TopK(int k) {
+        this(k, null);
+    }
+
+    /**
+     * @param comparator 越大越优先保留，为 null 时元素需要实现 Comparable
+     */
+    public TopK(int k, Comparator<? super E> comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k < 0");
+        }
+        this.k = k;
+        this.comparator = comparator != null ? comparator : (Comparator<? super E>) Comparator.naturalOrder();
+        this.heap = new PriorityQueue<E>(Math.max(1, Math.min(k, MAX_INIT_CAPACITY)), this.comparator);
+    }
+
+    /**
+     * @return 元素是否被保留
+     */
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException("element is null");
+        }
+        if (heap.size() < k) {
+            heap.offer(e);
+            return true;
+        }
+        if (k == 0 || comparator.compare(e, heap.peek()) <= 0) {
+            return false;
+        }
+        heap.replaceTop(e);
+        return true;
+    }
+
+    /**
+     * 把 other 保留的元素放入当前对象
+     */
+    public TopK<E> merge(TopK<? extends E> other) {
+        Object[] elements = other.heap.getQueue();
+        for (int i = 0, size = other.heap.size(); i < size; i++) {
+            offer((E) elements[i]);
+        }
+        return this;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * @return 当前保留的最小元素，新元素需要比它大才会被保留；没有元素时返回 null
+     */
+    public E threshold() {
+        return heap.peek();
+    }
+
+    /**
+     * @return 当前保留的元素，从大到小排序，不修改内部的堆
+     */
+    public List<E> toSortedList() {
+        Object[] elements = Arrays.copyOf(heap.getQueue(), heap.size());
+        Arrays.sort(elements, (Comparator<Object>) Collections.reverseOrder(comparator));
+        List<E> list = new ArrayList<E>(elements.length);
+        for (Object e : elements) {
+            list.add((E) e);
+        }
+        return list;
+    }
+
+    public static <T extends Comparable<? super T>> Collector<T, ?, List<T>> collector(int k) {
+        return collector(k, null);
+    }
+
+    /**
+     * 收集最大的 k 个元素，从大到小排序；并行流中每个线程各自一个 TopK，合并时小的放入大的
+     */
+    public static <T> Collector<T, ?, List<T>> collector(final int k, final Comparator<? super T> comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k < 0");
+        }
+        return Collector.of(
+                () -> new TopK<T>(k, comparator),
+                TopK::offer,
+                (a, b) -> a.size() >= b.size() ? a.merge(b) : b.merge(a),
+                TopK::toSortedList,
+                Collector.Characteristics.UNORDERED);
+    }
+
+}
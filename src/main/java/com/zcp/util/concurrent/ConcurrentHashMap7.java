@@ -0,0 +1,556 @@
+package com.zcp.util.concurrent;
+
+import com.zcp.util.UnsafeUtils;
+import sun.misc.Unsafe;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：线程安全的 HashMap7 数组+单链表
+ * 1.空桶通过 CAS 放入头节点，不加锁
+ * 2.桶不为空时只锁住该桶的头节点，不同桶之间的写操作互不影响
+ * 3.读操作全程不加锁，依赖 volatile 读保证可见性
+ * 4.扩容时每个线程从 transferIndex 领取一段桶进行迁移，其他线程 put 时遇到 ForwardingNode 会一起帮忙迁移
+ * @version:
+ */
+public class ConcurrentHashMap7<K, V> {
+
+    /**
+     * 数组默认大小
+     */
+    private final static int INIT_ARRAY_SIZE = 8;
+
+    private final static int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * 每个线程一次最少领取的迁移桶数
+     */
+    private final static int MIN_TRANSFER_STRIDE = 16;
+
+    /**
+     * sizeCtl 中用来记录扩容戳的位数
+     */
+    private final static int RESIZE_STAMP_BITS = 16;
+
+    private final static int RESIZE_STAMP_SHIFT = 32 - RESIZE_STAMP_BITS;
+
+    /**
+     * 同时参与扩容的最大线程数
+     */
+    private final static int MAX_RESIZERS = (1 << (32 - RESIZE_STAMP_BITS)) - 1;
+
+    /**
+     * ForwardingNode 的 hash，正常节点的 hash 都是非负数
+     */
+    final static int MOVED = -1;
+
+    private final static int HASH_BITS = 0x7fffffff;
+
+    private final static int NCPU = Runtime.getRuntime().availableProcessors();
+
+    private volatile Node<K, V>[] array;
+
+    /**
+     * 扩容时的新数组，只在扩容期间不为 null
+     */
+    private volatile Node<K, V>[] nextArray;
+
+    private volatile long size;
+
+    /**
+     * -1：正在初始化
+     * < -1：正在扩容，高16位是扩容戳，低16位是 (参与扩容的线程数 + 1)
+     * 0：使用默认大小初始化
+     * > 0：初始化时的数组大小，或者下一次扩容的阈值
+     */
+    private volatile int sizeCtl;
+
+    /**
+     * 下一个待领取的迁移区间的上界（不包含）
+     */
+    private volatile int transferIndex;
+
+    /**
+     * 这些个是魔法类
+     */
+    static final Unsafe unsafe = UnsafeUtils.getUnsafe();
+    private static long sizeOffset;
+    private static long sizeCtlOffset;
+    private static long transferIndexOffset;
+    private static long arrayBase;
+    private static int arrayShift;
+
+    static {
+        try {
+            sizeOffset = unsafe.objectFieldOffset(ConcurrentHashMap7.class.getDeclaredField("size"));
+            sizeCtlOffset = unsafe.objectFieldOffset(ConcurrentHashMap7.class.getDeclaredField("sizeCtl"));
+            transferIndexOffset = unsafe.objectFieldOffset(ConcurrentHashMap7.class.getDeclaredField("transferIndex"));
+            arrayBase = unsafe.arrayBaseOffset(Node[].class);
+            arrayShift = 31 - Integer.numberOfLeadingZeros(unsafe.arrayIndexScale(Node[].class));
+        } catch (NoSuchFieldException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public ConcurrentHashMap7() {
+    }
+
+    /**
+     * @param capacity 预计存放的元素个数
+     */
+    public ConcurrentHashMap7(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        this.sizeCtl = tableSizeFor(capacity + (capacity >>> 1) + 1);
+    }
+
+    static class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V val;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V val) {
+            this.hash = hash;
+            this.key = key;
+            this.val = val;
+        }
+
+        /**
+         * 从当前节点开始在链表中查找
+         */
+        Node<K, V> find(int h, Object k) {
+            Node<K, V> e = this;
+            do {
+                if (e.hash == h && e.key.equals(k)) {
+                    return e;
+                }
+            } while ((e = e.next) != null);
+            return null;
+        }
+    }
+
+    /**
+     * 放在已经迁移完的桶上，指向新数组；读线程遇到它就去新数组里查找
+     */
+    final static class ForwardingNode<K, V> extends Node<K, V> {
+        final Node<K, V>[] nextArray;
+
+        ForwardingNode(Node<K, V>[] nextArray) {
+            super(MOVED, null, null);
+            this.nextArray = nextArray;
+        }
+
+        @Override
+        Node<K, V> find(int h, Object k) {
+            outer:
+            for (Node<K, V>[] tab = nextArray; ; ) {
+                Node<K, V> e = tabAt(tab, (tab.length - 1) & h);
+                while (e != null) {
+                    if (e.hash == h && e.key.equals(k)) {
+                        return e;
+                    }
+                    if (e.hash < 0) {
+                        //连续扩容时，新数组上的桶也可能已经被迁移
+                        tab = ((ForwardingNode<K, V>) e).nextArray;
+                        continue outer;
+                    }
+                    e = e.next;
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 读操作不加锁
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new RuntimeException("key is null");
+        }
+        int h = hash(key);
+        Node<K, V>[] tab = array;
+        if (tab == null) {
+            return null;
+        }
+        Node<K, V> e = tabAt(tab, (tab.length - 1) & h);
+        if (e == null) {
+            return null;
+        }
+        Node<K, V> find = e.find(h, key);
+        return find == null ? null : find.val;
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return 旧值，不存在返回 null
+     */
+    public V put(K key, V val) {
+        return putVal(key, val, false);
+    }
+
+    /**
+     * key 不存在时才放入
+     *
+     * @return 已经存在的值，不存在返回 null
+     */
+    public V putIfAbsent(K key, V val) {
+        return putVal(key, val, true);
+    }
+
+    private V putVal(K key, V val, boolean onlyIfAbsent) {
+        if (key == null || val == null) {
+            throw new NullPointerException();
+        }
+        int h = hash(key);
+        int binCount = 0;
+        for (Node<K, V>[] tab = array; ; ) {
+            Node<K, V> f;
+            int n, i, fh;
+            if (tab == null || (n = tab.length) == 0) {
+                tab = initArray();
+            } else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+                //空桶：CAS 放入，不加锁
+                if (casTabAt(tab, i, null, new Node<K, V>(h, key, val))) {
+                    break;
+                }
+            } else if ((fh = f.hash) == MOVED) {
+                //正在扩容，先帮忙迁移
+                tab = helpTransfer(tab, f);
+            } else {
+                V oldVal = null;
+                synchronized (f) {
+                    //加锁之后再确认一下头节点没有变
+                    if (tabAt(tab, i) == f) {
+                        binCount = 1;
+                        for (Node<K, V> e = f; ; binCount++) {
+                            if (e.hash == h && e.key.equals(key)) {
+                                oldVal = e.val;
+                                if (!onlyIfAbsent) {
+                                    e.val = val;
+                                }
+                                break;
+                            }
+                            Node<K, V> pre = e;
+                            if ((e = e.next) == null) {
+                                pre.next = new Node<K, V>(h, key, val);
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    if (oldVal != null) {
+                        return oldVal;
+                    }
+                    break;
+                }
+            }
+        }
+        addCount(1L, binCount);
+        return null;
+    }
+
+    public V remove(K key) {
+        return removeNode(key, null);
+    }
+
+    /**
+     * key 当前对应的值与 value 相等（equals）时才删除，检查和删除在同一把桶锁内完成
+     *
+     * @return 是否删除了
+     */
+    public boolean remove(K key, Object value) {
+        if (value == null) {
+            throw new NullPointerException("value is null");
+        }
+        return removeNode(key, value) != null;
+    }
+
+    /**
+     * @param expect 不为 null 时只有当前值与之相等才删除
+     * @return 被删除的值
+     */
+    private V removeNode(K key, Object expect) {
+        if (key == null) {
+            throw new RuntimeException("key is null");
+        }
+        int h = hash(key);
+        for (Node<K, V>[] tab = array; ; ) {
+            Node<K, V> f;
+            int n, i;
+            if (tab == null || (n = tab.length) == 0 || (f = tabAt(tab, i = (n - 1) & h)) == null) {
+                return null;
+            }
+            if (f.hash == MOVED) {
+                tab = helpTransfer(tab, f);
+                continue;
+            }
+            boolean validated = false;
+            V oldVal = null;
+            synchronized (f) {
+                if (tabAt(tab, i) == f) {
+                    validated = true;
+                    for (Node<K, V> e = f, pre = null; e != null; pre = e, e = e.next) {
+                        if (e.hash == h && e.key.equals(key)) {
+                            if (expect != null && !expect.equals(e.val)) {
+                                break;
+                            }
+                            oldVal = e.val;
+                            if (pre != null) {
+                                pre.next = e.next;
+                            } else {
+                                //删除头节点
+                                setTabAt(tab, i, e.next);
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+            if (validated) {
+                if (oldVal != null) {
+                    addCount(-1L, -1);
+                }
+                return oldVal;
+            }
+        }
+    }
+
+    public int size() {
+        long n = size;
+        return n < 0L ? 0 : n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n;
+    }
+
+    public boolean isEmpty() {
+        return size <= 0L;
+    }
+
+    /**
+     * 懒加载初始化数组，只有 CAS sizeCtl 成功的线程负责创建
+     */
+    private Node<K, V>[] initArray() {
+        Node<K, V>[] tab;
+        int sc;
+        while ((tab = array) == null || tab.length == 0) {
+            if ((sc = sizeCtl) < 0) {
+                //其他线程正在初始化
+                Thread.yield();
+            } else if (unsafe.compareAndSwapInt(this, sizeCtlOffset, sc, -1)) {
+                try {
+                    if ((tab = array) == null || tab.length == 0) {
+                        int n = sc > 0 ? sc : INIT_ARRAY_SIZE;
+                        tab = (Node<K, V>[]) new Node[n];
+                        array = tab;
+                        //扩容因子 0.75
+                        sc = n - (n >>> 2);
+                    }
+                } finally {
+                    sizeCtl = sc;
+                }
+                break;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * 修改元素个数，并检查是否需要扩容
+     *
+     * @param check < 0 不检查扩容
+     */
+    private void addCount(long x, int check) {
+        long s;
+        do {
+            s = size;
+        } while (!unsafe.compareAndSwapLong(this, sizeOffset, s, s + x));
+        s += x;
+        if (check < 0) {
+            return;
+        }
+        Node<K, V>[] tab, nt;
+        int n, sc;
+        while (s >= (long) (sc = sizeCtl) && (tab = array) != null && (n = tab.length) < MAXIMUM_CAPACITY) {
+            int rs = resizeStamp(n) << RESIZE_STAMP_SHIFT;
+            if (sc < 0) {
+                //已经有线程在扩容，检查能否加入
+                if ((sc & ~MAX_RESIZERS) != rs || sc == rs + MAX_RESIZERS || sc == rs + 1
+                        || (nt = nextArray) == null || transferIndex <= 0) {
+                    break;
+                }
+                if (unsafe.compareAndSwapInt(this, sizeCtlOffset, sc, sc + 1)) {
+                    transfer(tab, nt);
+                }
+            } else if (unsafe.compareAndSwapInt(this, sizeCtlOffset, sc, rs + 2)) {
+                //第一个发起扩容的线程
+                transfer(tab, null);
+            }
+            s = size;
+        }
+    }
+
+    /**
+     * put/remove 遇到 ForwardingNode 时帮忙迁移
+     */
+    private Node<K, V>[] helpTransfer(Node<K, V>[] tab, Node<K, V> f) {
+        Node<K, V>[] nextTab;
+        int sc;
+        if (tab != null && (f instanceof ForwardingNode) && (nextTab = ((ForwardingNode<K, V>) f).nextArray) != null) {
+            int rs = resizeStamp(tab.length) << RESIZE_STAMP_SHIFT;
+            while (nextTab == nextArray && array == tab && (sc = sizeCtl) < 0) {
+                if ((sc & ~MAX_RESIZERS) != rs || sc == rs + MAX_RESIZERS || sc == rs + 1 || transferIndex <= 0) {
+                    break;
+                }
+                if (unsafe.compareAndSwapInt(this, sizeCtlOffset, sc, sc + 1)) {
+                    transfer(tab, nextTab);
+                    break;
+                }
+            }
+            return nextTab;
+        }
+        return array;
+    }
+
+    /**
+     * 将原来的数组扩容成2倍
+     * 每个线程从后往前领取 stride 个桶，锁住桶头节点后把链表拆成高低两条放到新数组，
+     * 再在旧桶上放置 ForwardingNode；最后一个退出的线程负责把新数组发布出去
+     */
+    private void transfer(Node<K, V>[] tab, Node<K, V>[] nextTab) {
+        int n = tab.length;
+        int stride = NCPU > 1 ? (n >>> 3) / NCPU : n;
+        if (stride < MIN_TRANSFER_STRIDE) {
+            stride = MIN_TRANSFER_STRIDE;
+        }
+        if (nextTab == null) {
+            nextTab = (Node<K, V>[]) new Node[n << 1];
+            nextArray = nextTab;
+            transferIndex = n;
+        }
+        int nextn = nextTab.length;
+        ForwardingNode<K, V> fwd = new ForwardingNode<K, V>(nextTab);
+        boolean advance = true;
+        boolean finishing = false;
+        for (int i = 0, bound = 0; ; ) {
+            Node<K, V> f;
+            int fh;
+            while (advance) {
+                int nextIndex, nextBound;
+                if (--i >= bound || finishing) {
+                    advance = false;
+                } else if ((nextIndex = transferIndex) <= 0) {
+                    //没有可以领取的区间了
+                    i = -1;
+                    advance = false;
+                } else if (unsafe.compareAndSwapInt(this, transferIndexOffset, nextIndex,
+                        nextBound = (nextIndex > stride ? nextIndex - stride : 0))) {
+                    bound = nextBound;
+                    i = nextIndex - 1;
+                    advance = false;
+                }
+            }
+            if (i < 0 || i >= n || i + n >= nextn) {
+                int sc;
+                if (finishing) {
+                    nextArray = null;
+                    array = nextTab;
+                    sizeCtl = (n << 1) - (n >>> 1);
+                    return;
+                }
+                if (unsafe.compareAndSwapInt(this, sizeCtlOffset, sc = sizeCtl, sc - 1)) {
+                    if ((sc - 2) != resizeStamp(n) << RESIZE_STAMP_SHIFT) {
+                        //不是最后一个线程，直接退出
+                        return;
+                    }
+                    //最后一个线程再从头检查一遍所有的桶
+                    finishing = advance = true;
+                    i = n;
+                }
+            } else if ((f = tabAt(tab, i)) == null) {
+                advance = casTabAt(tab, i, null, fwd);
+            } else if ((fh = f.hash) == MOVED) {
+                advance = true;
+            } else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        //lastRun 之后的节点在新数组中落在同一个桶，可以整段复用
+                        int runBit = fh & n;
+                        Node<K, V> lastRun = f;
+                        for (Node<K, V> p = f.next; p != null; p = p.next) {
+                            int b = p.hash & n;
+                            if (b != runBit) {
+                                runBit = b;
+                                lastRun = p;
+                            }
+                        }
+                        Node<K, V> ln, hn;
+                        if (runBit == 0) {
+                            ln = lastRun;
+                            hn = null;
+                        } else {
+                            hn = lastRun;
+                            ln = null;
+                        }
+                        //lastRun 之前的节点需要复制，读线程可能还在遍历旧链表，不能修改它们的 next
+                        for (Node<K, V> p = f; p != lastRun; p = p.next) {
+                            if ((p.hash & n) == 0) {
+                                Node<K, V> node = new Node<K, V>(p.hash, p.key, p.val);
+                                node.next = ln;
+                                ln = node;
+                            } else {
+                                Node<K, V> node = new Node<K, V>(p.hash, p.key, p.val);
+                                node.next = hn;
+                                hn = node;
+                            }
+                        }
+                        setTabAt(nextTab, i, ln);
+                        setTabAt(nextTab, i + n, hn);
+                        setTabAt(tab, i, fwd);
+                        advance = true;
+                    }
+                }
+            }
+        }
+    }
+
+    static <K, V> Node<K, V> tabAt(Node<K, V>[] tab, int i) {
+        return (Node<K, V>) unsafe.getObjectVolatile(tab, ((long) i << arrayShift) + arrayBase);
+    }
+
+    static <K, V> boolean casTabAt(Node<K, V>[] tab, int i, Node<K, V> c, Node<K, V> v) {
+        return unsafe.compareAndSwapObject(tab, ((long) i << arrayShift) + arrayBase, c, v);
+    }
+
+    static <K, V> void setTabAt(Node<K, V>[] tab, int i, Node<K, V> v) {
+        unsafe.putObjectVolatile(tab, ((long) i << arrayShift) + arrayBase, v);
+    }
+
+    /**
+     * 扩容戳：数组长度不同戳就不同，防止线程加入一个已经结束的扩容
+     */
+    private static int resizeStamp(int n) {
+        return Integer.numberOfLeadingZeros(n) | (1 << (RESIZE_STAMP_BITS - 1));
+    }
+
+    private static int tableSizeFor(int c) {
+        int n = INIT_ARRAY_SIZE;
+        while (n < c && n < MAXIMUM_CAPACITY) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * 与 HashMap7 相同的扰动函数，最高位清零，负数留给 ForwardingNode
+     */
+    private static int hash(Object o) {
+        int h;
+        return ((h = o.hashCode()) ^ (h >>> 16)) & HASH_BITS;
+    }
+
+}
@@ -0,0 +1,271 @@
+package com.zcp.util.concurrent;
+
+import com.zcp.util.UnsafeUtils;
+import sun.misc.Unsafe;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：自动加载的线程安全缓存，基于 ConcurrentHashMap7
+ * 1.未命中时先通过 putIfAbsent 放入一个"加载中"的节点，放入成功的线程负责调用 CacheLoader 加载，
+ * 同一个 key 同时未命中的其他线程拿到的是同一个节点，等待它加载完成，同一个 key 同一时间只会有一次加载（single-flight）
+ * 2.加载失败时所有等待的线程都会收到同一个异常，节点被移除（只移除这一次加载的节点，不会误删期间 put 进来的新值），下一次访问重新加载；
+ * CacheLoader 中访问正在加载的同一个 key 会抛出 IllegalStateException，而不是等待自己永远等不到的结果
+ * 3.可选的提前刷新：值加载超过 refreshAfter 之后被访问时，交给线程池在后台重新加载，刷新完成之前继续返回旧值，
+ * 同一个节点同一时间只会提交一次刷新
+ * key、value 都不能为 null，没有容量限制
+ * @version:
+ */
+public class LoadingCache<K, V> {
+
+    private final ConcurrentHashMap7<K, Node<V>> map = new ConcurrentHashMap7<K, Node<V>>();
+
+    private final CacheLoader<? super K, ? extends V> loader;
+
+    /**
+     * 提前刷新的时间，<= 0 表示不刷新
+     */
+    private final long refreshAfterNanos;
+
+    private final ExecutorService executor;
+
+    private volatile long loadCount;
+
+    static final Unsafe unsafe = UnsafeUtils.getUnsafe();
+    private static long loadCountOffset;
+
+    static {
+        try {
+            loadCountOffset = unsafe.objectFieldOffset(LoadingCache.class.getDeclaredField("loadCount"));
+        } catch (NoSuchFieldException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public LoadingCache(CacheLoader<? super K, ? extends V> loader) {
+        this(loader, 0, TimeUnit.NANOSECONDS, null);
+    }
+
+    /**
+     * @param refreshAfter 值加载之后超过这么长时间再被访问时，在后台重新加载
+     * @param executor     执行后台刷新的线程池
+     */
+    public LoadingCache(CacheLoader<? super K, ? extends V> loader, long refreshAfter, TimeUnit unit, ExecutorService executor) {
+        if (loader == null) {
+            throw new NullPointerException("loader is null");
+        }
+        if (refreshAfter > 0 && executor == null) {
+            throw new NullPointerException("executor is null");
+        }
+        this.loader = loader;
+        this.refreshAfterNanos = unit.toNanos(refreshAfter);
+        this.executor = executor;
+    }
+
+    /**
+     * 加载 value
+     */
+    public interface CacheLoader<K, V> {
+        V load(K key) throws Exception;
+    }
+
+    /**
+     * 缓存节点，加载完成之前 done 为 false
+     */
+    final static class Node<V> {
+        /**
+         * 负责加载的线程，加载完成后置为 null
+         */
+        volatile Thread owner;
+        volatile V value;
+        volatile Throwable error;
+        volatile boolean done;
+        /**
+         * 最近一次加载完成的时间
+         */
+        volatile long loadNanos;
+        /**
+         * 最近一次提交后台刷新的时间
+         */
+        volatile long refreshNanos;
+
+        static long refreshNanosOffset;
+
+        static {
+            try {
+                refreshNanosOffset = unsafe.objectFieldOffset(Node.class.getDeclaredField("refreshNanos"));
+            } catch (NoSuchFieldException e) {
+                e.printStackTrace();
+            }
+        }
+
+        Node(Thread owner) {
+            this.owner = owner;
+        }
+
+        synchronized void complete(V value, Throwable error) {
+            this.value = value;
+            this.error = error;
+            this.loadNanos = this.refreshNanos = System.nanoTime();
+            this.owner = null;
+            this.done = true;
+            notifyAll();
+        }
+
+        /**
+         * 等待加载完成，等待期间被中断不会放弃等待，只在返回前恢复中断标记
+         */
+        V await() {
+            if (!done) {
+                boolean interrupted = false;
+                synchronized (this) {
+                    while (!done) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Throwable t = error;
+            if (t != null) {
+                if (t instanceof RuntimeException) {
+                    throw (RuntimeException) t;
+                }
+                if (t instanceof Error) {
+                    throw (Error) t;
+                }
+                throw new RuntimeException(t);
+            }
+            return value;
+        }
+
+        boolean casRefreshNanos(long expect, long update) {
+            return unsafe.compareAndSwapLong(this, refreshNanosOffset, expect, update);
+        }
+    }
+
+    /**
+     * 获取 key 对应的值，不存在时加载；同一个 key 正在加载时等待那一次加载的结果
+     *
+     * @throws RuntimeException      加载失败，受检异常会被包装成 RuntimeException
+     * @throws IllegalStateException 在 CacheLoader 中访问正在加载的同一个 key
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new NullPointerException("key is null");
+        }
+        Node<V> node = map.get(key);
+        if (node == null) {
+            Node<V> created = new Node<V>(Thread.currentThread());
+            node = map.putIfAbsent(key, created);
+            if (node == null) {
+                //放入成功，由当前线程加载
+                load(key, created);
+                return created.await();
+            }
+        }
+        if (!node.done && node.owner == Thread.currentThread()) {
+            throw new IllegalStateException("recursive load of key " + key);
+        }
+        V value = node.await();
+        if (refreshAfterNanos > 0) {
+            refreshIfNeeded(key, node);
+        }
+        return value;
+    }
+
+    /**
+     * @return 已经加载完成的值，不存在或者正在加载时返回 null，不会触发加载
+     */
+    public V getIfPresent(K key) {
+        Node<V> node = map.get(key);
+        return node != null && node.done && node.error == null ? node.value : null;
+    }
+
+    /**
+     * 直接放入一个值，正在等待这个 key 加载的线程仍然拿到加载的结果
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value is null");
+        }
+        Node<V> node = new Node<V>(null);
+        node.complete(value, null);
+        map.put(key, node);
+    }
+
+    public void invalidate(K key) {
+        map.remove(key);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * 调用 CacheLoader 的次数，包括后台刷新
+     */
+    public long loadCount() {
+        return loadCount;
+    }
+
+    private void load(K key, Node<V> node) {
+        V value = null;
+        Throwable error = null;
+        try {
+            value = callLoader(key);
+        } catch (Throwable t) {
+            error = t;
+        }
+        if (error != null) {
+            //加载失败不缓存，下一次访问重新加载；只删除自己的节点，期间 put 进来的值不受影响
+            map.remove(key, node);
+        }
+        node.complete(value, error);
+    }
+
+    /**
+     * 值已经超过 refreshAfter 时提交后台刷新，通过 CAS refreshNanos 保证同一时间只提交一次；
+     * 提交的刷新如果没有执行（例如线程池已经关闭），再过 refreshAfter 之后会重新提交
+     */
+    private void refreshIfNeeded(final K key, final Node<V> node) {
+        long now = System.nanoTime();
+        long refreshNanos = node.refreshNanos;
+        if (node.error != null || now - node.loadNanos <= refreshAfterNanos || now - refreshNanos <= refreshAfterNanos
+                || !node.casRefreshNanos(refreshNanos, now)) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    V value = callLoader(key);
+                    node.value = value;
+                    node.loadNanos = System.nanoTime();
+                } catch (Throwable t) {
+                    //刷新失败保留旧值，下一次访问再尝试
+                }
+            }
+        });
+    }
+
+    private V callLoader(K key) throws Exception {
+        long c;
+        do {
+            c = loadCount;
+        } while (!unsafe.compareAndSwapLong(this, loadCountOffset, c, c + 1));
+        V value = loader.load(key);
+        if (value == null) {
+            throw new NullPointerException("loader returned null for key " + key);
+        }
+        return value;
+    }
+
+}
@@ -342,6 +342,17 @@ public class ScheduledThreadPoolExecutor implements ScheduledExecutorService {
 
     }
 
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    /**
+     * 当前线程数，每个定时任务独占一个线程，达到核心线程数之后再提交的任务会交给饱和策略
+     */
+    public int getPoolSize() {
+        return threadCount;
+    }
+
     /**
      * 线程池所有线程是否都已经都跑完任务了
      *
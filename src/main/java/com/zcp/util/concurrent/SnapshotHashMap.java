@@ -0,0 +1,104 @@
+package com.zcp.util.concurrent;
+
+import com.zcp.util.PersistentHashMap;
+import com.zcp.util.UnsafeUtils;
+import sun.misc.Unsafe;
+
+/**
+ * @author ：ZCP
+ * @date ：2026/10/18
+ * @description：读多写少的线程安全哈希表，内部只有一个指向当前版本 PersistentHashMap 的 volatile 引用
+ * 1.读操作直接读当前版本，不加锁
+ * 2.写操作基于当前版本生成新版本（只复制修改路径上的节点），再通过一次 CAS 发布，CAS 失败说明有其他写线程先发布了，基于新的版本重试；
+ * 不会改变内容的写操作（put 相同的 value、key 已存在时 putIfAbsent、remove 不存在的 key）不做 CAS，直接返回
+ * 3.snapshot() 返回当前版本本身，O(1) 且不复制，之后的写入不会影响已经拿到的快照
+ * key、value 都不能为 null
+ * @version:
+ */
+public class SnapshotHashMap<K, V> {
+
+    private volatile PersistentHashMap<K, V> map = PersistentHashMap.empty();
+
+    static final Unsafe unsafe = UnsafeUtils.getUnsafe();
+    private static long mapOffset;
+
+    static {
+        try {
+            mapOffset = unsafe.objectFieldOffset(SnapshotHashMap.class.getDeclaredField("map"));
+        } catch (NoSuchFieldException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public V get(K key) {
+        return map.get(key);
+    }
+
+    public boolean containsKey(K key) {
+        return map.containsKey(key);
+    }
+
+    /**
+     * @return 原来的值
+     */
+    public V put(K key, V val) {
+        if (key == null || val == null) {
+            throw new NullPointerException();
+        }
+        for (; ; ) {
+            PersistentHashMap<K, V> cur = map;
+            V old = cur.get(key);
+            if (old == val || casMap(cur, cur.put(key, val))) {
+                return old;
+            }
+        }
+    }
+
+    /**
+     * key 不存在时才放入
+     *
+     * @return 原来的值
+     */
+    public V putIfAbsent(K key, V val) {
+        if (key == null || val == null) {
+            throw new NullPointerException();
+        }
+        for (; ; ) {
+            PersistentHashMap<K, V> cur = map;
+            V old = cur.get(key);
+            if (old != null || casMap(cur, cur.put(key, val))) {
+                return old;
+            }
+        }
+    }
+
+    public V remove(K key) {
+        for (; ; ) {
+            PersistentHashMap<K, V> cur = map;
+            V old = cur.get(key);
+            if (old == null || casMap(cur, cur.remove(key))) {
+                return old;
+            }
+        }
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * 当前版本的只读快照
+     */
+    public PersistentHashMap<K, V> snapshot() {
+        return map;
+    }
+
+    private boolean casMap(PersistentHashMap<K, V> expect, PersistentHashMap<K, V> update) {
+        return unsafe.compareAndSwapObject(this, mapOffset, expect, update);
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class BinarySnapshotTest {
+
+    /**
+     * 写快照再恢复，内容不变；包括树化的桶和超过缓冲区大小的 value
+     */
+    @Test
+    public void hashMap() throws IOException {
+        File file = File.createTempFile("hash-map", ".snapshot");
+        try {
+            HashMap7<String, String> map7 = new HashMap7<String, String>();
+            HashMap<String, String> map = new HashMap<String, String>();
+            for (int i = 0; i < 100000; i++) {
+                String key = i % 100 == 0 ? TestKeys.collideString(i) : "key-" + i;
+                String val = i == 500 ? bigString(200000) : "val-" + i;
+                map7.put(key, val);
+                map.put(key, val);
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                BinarySnapshot.writeHashMap(map7, Serializer.STRING, Serializer.STRING, channel);
+            }
+            HashMap7<String, String> restored;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                restored = BinarySnapshot.readHashMap(channel, Serializer.STRING, Serializer.STRING);
+            }
+            assertEquals(map.size(), restored.size());
+            assertEquals(map.entrySet(), restored.entrySet());
+            assertEquals(0, restored.stats().resizeCount());
+            assertTrue(restored.stats().treeBinCount() > 0);
+            restored.put("new", "v");
+            assertEquals("v", restored.get("new"));
+            assertEquals(map.get(TestKeys.collideString(300)), restored.remove(TestKeys.collideString(300)));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * 恢复后的队列出队顺序与原队列相同
+     */
+    @Test
+    public void priorityQueue() throws IOException {
+        File file = File.createTempFile("priority-queue", ".snapshot");
+        try {
+            PriorityQueue<Long> queue = new PriorityQueue<Long>(8, null, 8);
+            long[] expected = new long[50000];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = (long) (Math.random() * 1000000);
+                queue.offer(expected[i]);
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                BinarySnapshot.writePriorityQueue(queue, Serializer.LONG, channel);
+            }
+            PriorityQueue<Long> restored;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                restored = BinarySnapshot.readPriorityQueue(channel, Serializer.LONG, null);
+            }
+            assertEquals(queue.size(), restored.size());
+            assertEquals(queue.getCapacity(), restored.getCapacity());
+            assertEquals(8, restored.getArity());
+            restored.offer(-1L);
+            assertEquals(Long.valueOf(-1L), restored.poll());
+            Arrays.sort(expected);
+            for (long l : expected) {
+                assertEquals(Long.valueOf(l), restored.poll());
+            }
+            assertTrue(restored.isEmpty());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void wrongType() throws IOException {
+        File file = File.createTempFile("priority-queue", ".snapshot");
+        try {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                BinarySnapshot.writePriorityQueue(new PriorityQueue<Long>(), Serializer.LONG, channel);
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                BinarySnapshot.readHashMap(channel, Serializer.LONG, Serializer.LONG);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * 快照中的元素个数、元素长度被改坏时抛出 IOException，而不是按错误的长度分配内存
+     */
+    @Test
+    public void corruptedLength() throws IOException {
+        File file = File.createTempFile("hash-map", ".snapshot");
+        try {
+            HashMap7<String, String> map7 = new HashMap7<String, String>();
+            map7.put("key", "val");
+            //头部 magic、version、type 之后是 size；size 和 incremental 之后是第一个元素的 hash、keyLen
+            for (int offset : new int[]{12, 21}) {
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                    BinarySnapshot.writeHashMap(map7, Serializer.STRING, Serializer.STRING, channel);
+                    channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), offset);
+                }
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    BinarySnapshot.readHashMap(channel, Serializer.STRING, Serializer.STRING);
+                    fail();
+                } catch (IOException e) {
+                    assertTrue(e.getMessage().startsWith("corrupted snapshot"));
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static String bigString(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+
+}
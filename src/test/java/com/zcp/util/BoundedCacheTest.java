@@ -0,0 +1,67 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void boundTest() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<Integer, Integer>(1000);
+        for (int i = 0; i < 100000; i++) {
+            int key = (int) (Math.random() * 5000);
+            Integer v = cache.get(key);
+            if (v == null) {
+                cache.put(key, key);
+            } else {
+                assertEquals(Integer.valueOf(key), v);
+            }
+            assertTrue(cache.size() <= 1000);
+        }
+        assertEquals(100000, cache.hitCount() + cache.missCount());
+        assertTrue(cache.evictionCount() > 0);
+    }
+
+    /**
+     * 热点 key 不会被一次性扫描的冷数据冲掉
+     */
+    @Test
+    public void scanResistantTest() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<Integer, Integer>(100);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (cache.get(i) == null) {
+                    cache.put(i, i);
+                }
+            }
+        }
+        for (int i = 1000; i < 100000; i++) {
+            if (cache.get(i) == null) {
+                cache.put(i, i);
+            }
+        }
+        int hot = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.containsKey(i)) {
+                hot++;
+            }
+        }
+        assertTrue("hot = " + hot, hot >= 45);
+    }
+
+    @Test
+    public void weigherTest() {
+        BoundedCache<String, String> cache = new BoundedCache<String, String>(1000, (k, v) -> v.length());
+        for (int i = 0; i < 10000; i++) {
+            cache.put("k" + i, new String(new char[(int) (Math.random() * 100)]));
+            assertTrue(cache.weightedSize() <= 1000);
+        }
+        cache.put("big", new String(new char[1001]));
+        assertFalse(cache.containsKey("big"));
+        int before = cache.size();
+        String removed = cache.remove("k9999");
+        assertEquals(removed == null ? before : before - 1, cache.size());
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class ByteKeyHashMapTest {
+
+    private final static String[] PARTS = {"a", "key", "é", "中文", "😀", "_"};
+
+    /**
+     * 与 java.util.HashMap 做对数器，交替使用 String、StringBuilder 和 byte[] 的一段作为 key
+     */
+    @Test
+    public void test() {
+        ByteKeyHashMap<Integer> bk = new ByteKeyHashMap<Integer>();
+        HashMap<String, Integer> map = new HashMap<String, Integer>();
+        for (int i = 0; i < 1000000; i++) {
+            String key = randomKey();
+            byte[] utf8 = key.getBytes(StandardCharsets.UTF_8);
+            byte[] padded = new byte[utf8.length + 5];
+            System.arraycopy(utf8, 0, padded, 3, utf8.length);
+            switch ((int) (Math.random() * 6)) {
+                case 0:
+                    assertEquals(map.put(key, i), bk.put(new StringBuilder(key), i));
+                    break;
+                case 1:
+                    assertEquals(map.put(key, i), bk.put(padded, 3, utf8.length, i));
+                    break;
+                case 2:
+                    assertEquals(map.get(key), bk.get(key));
+                    break;
+                case 3:
+                    assertEquals(map.get(key), bk.get(padded, 3, utf8.length));
+                    break;
+                case 4:
+                    assertEquals(map.remove(key), (int) (Math.random() * 2) == 0 ? bk.remove(key) : bk.remove(utf8, 0, utf8.length));
+                    break;
+                case 5:
+                    assertEquals(map.containsKey(key), bk.containsKey(new StringBuilder(key)));
+                    break;
+            }
+            assertEquals(map.size(), bk.size());
+        }
+        HashMap<String, Integer> copy = new HashMap<String, Integer>();
+        bk.forEach(copy::put);
+        assertEquals(map, copy);
+    }
+
+    /**
+     * 删除产生的空洞会在 slab 写满时被压缩回收，反复放入删除同一批 key，slab 不会一直变大
+     */
+    @Test
+    public void compact() {
+        ByteKeyHashMap<Integer> bk = new ByteKeyHashMap<Integer>();
+        for (int i = 0; i < 100000; i++) {
+            String key = "key-" + (i % 10);
+            bk.put(key, i);
+            assertEquals(Integer.valueOf(i), bk.remove(key));
+        }
+        assertTrue(bk.isEmpty());
+        assertTrue(bk.slabBytes() <= 64);
+    }
+
+    private static String randomKey() {
+        StringBuilder sb = new StringBuilder();
+        int n = (int) (Math.random() * 4);
+        for (int i = 0; i < n; i++) {
+            sb.append(PARTS[(int) (Math.random() * PARTS.length)]);
+        }
+        return sb.append((int) (Math.random() * 100)).toString();
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.zcp.util;
+
+import com.zcp.util.concurrent.ScheduledThreadPoolExecutor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.*;
+
+public class ExpiringMapTest {
+
+    /**
+     * 手动推进的纳秒时钟，起点接近 Long.MAX_VALUE，测试过程中会回绕成负数
+     */
+    final static class ManualClock implements LongSupplier {
+        long nanos = Long.MAX_VALUE - TimeUnit.MILLISECONDS.toNanos(150);
+
+        void advance(long millis) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long getAsLong() {
+            return nanos;
+        }
+    }
+
+    /**
+     * 写入后过期：过期的值读不到，重新写入会刷新过期时间
+     */
+    @Test
+    public void expireAfterWrite() {
+        ManualClock clock = new ManualClock();
+        ExpiringMap<String, Integer> map = new ExpiringMap<String, Integer>(100, 0, TimeUnit.MILLISECONDS, clock);
+        assertNull(map.put("a", 1));
+        map.put("b", 2);
+        assertEquals(Integer.valueOf(1), map.put("a", 3));
+        assertEquals(2, map.size());
+        clock.advance(60);
+        map.put("b", 4);
+        clock.advance(40);
+        //a 刚好到期，读操作直接隐藏；b 重新写入过，还没有过期
+        assertNull(map.get("a"));
+        assertFalse(map.containsKey("a"));
+        assertEquals(Integer.valueOf(4), map.get("b"));
+        assertEquals(1, map.size());
+        clock.advance(59);
+        assertEquals(1, map.size());
+        clock.advance(1);
+        assertEquals(0, map.size());
+        assertEquals(2, map.expiredCount());
+    }
+
+    /**
+     * 访问后过期：一直被访问的元素不会过期，不再访问之后才过期
+     */
+    @Test
+    public void expireAfterAccess() {
+        ManualClock clock = new ManualClock();
+        ExpiringMap<String, Integer> map = new ExpiringMap<String, Integer>(0, 100, TimeUnit.MILLISECONDS, clock);
+        map.put("hot", 1);
+        map.put("cold", 2);
+        for (int i = 0; i < 5; i++) {
+            clock.advance(99);
+            assertEquals(Integer.valueOf(1), map.get("hot"));
+        }
+        map.cleanUp();
+        assertFalse(map.containsKey("cold"));
+        assertTrue(map.containsKey("hot"));
+        clock.advance(100);
+        map.cleanUp();
+        assertEquals(0, map.size());
+        assertEquals(2, map.expiredCount());
+    }
+
+    /**
+     * 两种过期时间都设置时先到者生效，remove 后的元素不再计入过期个数
+     */
+    @Test
+    public void writeAndAccess() {
+        ManualClock clock = new ManualClock();
+        ExpiringMap<Integer, Integer> map = new ExpiringMap<Integer, Integer>(200, 80, TimeUnit.MILLISECONDS, clock);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        assertEquals(Integer.valueOf(7), map.remove(7));
+        assertNull(map.remove(7));
+        for (int i = 0; i < 3; i++) {
+            clock.advance(50);
+            assertEquals(Integer.valueOf(0), map.get(0));
+        }
+        clock.advance(50);
+        //0 一直被访问，但已经超过写入后过期的时间
+        assertNull(map.get(0));
+        assertEquals(0, map.size());
+        assertEquals(99, map.expiredCount());
+    }
+
+    @Test
+    public void noExpiry() {
+        ManualClock clock = new ManualClock();
+        ExpiringMap<String, String> map = new ExpiringMap<String, String>(0, 0, TimeUnit.MILLISECONDS, clock);
+        map.put("k", "v");
+        clock.advance(TimeUnit.DAYS.toMillis(365));
+        map.cleanUp();
+        assertEquals("v", map.get("k"));
+        assertEquals(0, map.expiredCount());
+    }
+
+    /**
+     * 很大的 TTL 加上当前时间会溢出，按不过期处理，不会挡住其他到期的记录
+     */
+    @Test
+    public void hugeTtl() {
+        ManualClock clock = new ManualClock();
+        ExpiringMap<String, String> never = new ExpiringMap<String, String>(Long.MAX_VALUE, 0, TimeUnit.NANOSECONDS, clock);
+        never.put("k", "v");
+        ExpiringMap<Integer, Integer> map = new ExpiringMap<Integer, Integer>(Long.MAX_VALUE, 30, TimeUnit.MILLISECONDS, clock);
+        map.put(1, 1);
+        map.put(2, 2);
+        clock.advance(30);
+        assertEquals("v", never.get("k"));
+        assertEquals(1, never.size());
+        assertEquals(0, map.size());
+        assertEquals(2, map.expiredCount());
+    }
+
+    /**
+     * 由定时线程池在后台清理，不调用任何读写方法也会过期
+     */
+    @Test
+    public void scheduledCleanup() throws InterruptedException {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        ExpiringMap<Integer, Integer> map = new ExpiringMap<Integer, Integer>(50, 0, TimeUnit.MILLISECONDS, scheduler, 20);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        long deadline = System.currentTimeMillis() + 2000;
+        while (map.expiredCount() < 1000 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1000, map.expiredCount());
+        map.close();
+        map.put(1, 1);
+        Thread.sleep(150);
+        //关闭后不再后台清理，过期的值仍然读不到
+        assertEquals(1000, map.expiredCount());
+        assertNull(map.get(1));
+        scheduler.shutdown();
+    }
+
+    /**
+     * 同一个线程池、同一个清理间隔的 map 共用一个清理任务；没有空闲的核心线程或者线程池已经关闭时直接失败
+     */
+    @Test
+    public void sharedSweeper() throws InterruptedException {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        List<ExpiringMap<Integer, Integer>> maps = new ArrayList<ExpiringMap<Integer, Integer>>();
+        for (int m = 0; m < 3; m++) {
+            ExpiringMap<Integer, Integer> map = new ExpiringMap<Integer, Integer>(30, 0, TimeUnit.MILLISECONDS, scheduler, 20);
+            for (int i = 0; i < 100; i++) {
+                map.put(i, i);
+            }
+            maps.add(map);
+        }
+        long deadline = System.currentTimeMillis() + 2000;
+        for (ExpiringMap<Integer, Integer> map : maps) {
+            while (map.expiredCount() < 100 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(100, map.expiredCount());
+        }
+        try {
+            new ExpiringMap<Integer, Integer>(30, 0, TimeUnit.MILLISECONDS, scheduler, 50);
+            fail();
+        } catch (IllegalStateException e) {
+            //唯一的核心线程已经被间隔 20ms 的清理任务占用
+        }
+        scheduler.shutdown();
+        ScheduledThreadPoolExecutor closed = new ScheduledThreadPoolExecutor(1);
+        closed.shutdown();
+        try {
+            new ExpiringMap<Integer, Integer>(30, 0, TimeUnit.MILLISECONDS, closed, 20);
+            fail();
+        } catch (IllegalStateException e) {
+            //线程池已经关闭
+        }
+    }
+
+}
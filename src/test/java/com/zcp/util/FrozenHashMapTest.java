@@ -0,0 +1,41 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class FrozenHashMapTest {
+
+    /**
+     * 冻结之后查询结果与 java.util.HashMap 一致，包括 hashCode 相同的 key
+     */
+    @Test
+    public void test() {
+        for (int n : new int[]{0, 1, 2, 3, 17, 1000, 100000}) {
+            HashMap7<Object, Integer> map7 = new HashMap7<Object, Integer>();
+            HashMap<Object, Integer> map = new HashMap<Object, Integer>();
+            for (int i = 0; i < n; i++) {
+                Object key = i % 10 == 0 ? TestKeys.collideString(i) : i + "";
+                map7.put(key, i);
+                map.put(key, i);
+            }
+            FrozenHashMap<Object, Integer> frozen = map7.freeze();
+            assertEquals(map.size(), frozen.size());
+            for (int i = -100; i < n + 100; i++) {
+                Object key = i % 10 == 0 ? TestKeys.collideString(i) : i + "";
+                assertEquals(map.get(key), frozen.get(key));
+                assertEquals(map.containsKey(key), frozen.containsKey(key));
+            }
+            HashMap<Object, Integer> copy = new HashMap<Object, Integer>();
+            frozen.forEach(copy::put);
+            assertEquals(map, copy);
+            //冻结之后原 map 的修改不影响 frozen
+            map7.put("x", -1);
+            assertNull(frozen.get("x"));
+            assertEquals(Integer.valueOf(-2), frozen.getOrDefault("x", -2));
+        }
+    }
+
+}
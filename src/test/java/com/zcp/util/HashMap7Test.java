@@ -3,8 +3,18 @@ package com.zcp.util;
 import org.junit.Test;
 import org.omg.PortableInterceptor.INACTIVE;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
 
@@ -84,4 +94,321 @@ public class HashMap7Test {
         System.out.println(map7.containsKey("65"));
     }
 
-}
\ No newline at end of file
+    /**
+     * hashCode 全部相同的 key，一部分可比较一部分不可比较，验证树化之后的正确性
+     */
+    @Test
+    public void treeifyTest() {
+        HashMap7<Object, Integer> map7 = new HashMap7<Object, Integer>();
+        HashMap<Object, Integer> map = new HashMap<Object, Integer>();
+        for (int i = 0; i < 500000; i++) {
+            int n = (int) (Math.random() * 300);
+            Object key = (i & 1) == 0 ? new CollideKey(n) : TestKeys.collideString(n);
+            switch ((int) (Math.random() * 4)) {
+                case 0:
+                    map7.put(key, i);
+                    map.put(key, i);
+                    break;
+                case 1:
+                    assertEquals(map.get(key), map7.get(key));
+                    break;
+                case 2:
+                    assertEquals(map.remove(key), map7.remove(key));
+                    break;
+                case 3:
+                    assertEquals(map.containsKey(key), map7.containsKey(key));
+                    break;
+            }
+            assertEquals(map.size(), map7.size());
+        }
+    }
+
+    /**
+     * 渐进式扩容模式，包含树化的桶
+     */
+    @Test
+    public void incrementalTest() {
+        HashMap7<Object, Integer> map7 = new HashMap7<Object, Integer>(true);
+        HashMap<Object, Integer> map = new HashMap<Object, Integer>();
+        for (int i = 0; i < 1000000; i++) {
+            int n = (int) (Math.random() * 20000);
+            Object key = n % 50 == 0 ? TestKeys.collideString(n) : n + "";
+            switch ((int) (Math.random() * 5)) {
+                case 0:
+                case 1:
+                    map7.put(key, i);
+                    map.put(key, i);
+                    break;
+                case 2:
+                    assertEquals(map.get(key), map7.get(key));
+                    break;
+                case 3:
+                    assertEquals(map.remove(key), map7.remove(key));
+                    break;
+                case 4:
+                    assertEquals(map.containsKey(key), map7.containsKey(key));
+                    break;
+            }
+            assertEquals(map.size(), map7.size());
+        }
+        assertEquals(map.keySet(), map7.keySet());
+    }
+
+    /**
+     * 视图遍历、迭代器删除（包括树化的桶和渐进式扩容中的旧数组）
+     */
+    @Test
+    public void iteratorTest() {
+        HashMap7<Object, Integer> map7 = new HashMap7<Object, Integer>(true);
+        HashMap<Object, Integer> map = new HashMap<Object, Integer>();
+        for (int i = 0; i < 100000; i++) {
+            Object key = i % 10 == 0 ? TestKeys.collideString(i) : i + "";
+            map7.put(key, i);
+            map.put(key, i);
+        }
+        assertEquals(map.keySet(), map7.keySet());
+        assertEquals(map.entrySet(), map7.entrySet());
+        long sum = 0;
+        for (Integer v : map7.values()) {
+            sum += v;
+        }
+        assertEquals(map.values().stream().mapToLong(Integer::longValue).sum(), sum);
+
+        Iterator<Map.Entry<Object, Integer>> it = map7.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Object, Integer> e = it.next();
+            if (e.getValue() % 3 == 0) {
+                it.remove();
+                map.remove(e.getKey());
+            } else {
+                e.setValue(e.getValue() + 1);
+                map.put(e.getKey(), e.getValue());
+            }
+        }
+        assertEquals(map.size(), map7.size());
+        assertEquals(map.entrySet(), map7.entrySet());
+        map7.keySet().remove("1");
+        map.remove("1");
+        assertEquals(map.keySet(), map7.keySet());
+    }
+
+    /**
+     * 遍历过程中的结构修改（包括触发扩容、渐进式迁移的 put）会快速失败
+     */
+    @Test
+    public void failFastTest() {
+        for (boolean incremental : new boolean[]{false, true}) {
+            HashMap7<String, Integer> map7 = new HashMap7<String, Integer>(incremental);
+            for (int i = 0; i < 6; i++) {
+                map7.put(i + "", i);
+            }
+            Iterator<String> it = map7.keySet().iterator();
+            it.next();
+            for (int i = 6; i < 20; i++) {
+                map7.put(i + "", i);
+            }
+            try {
+                it.next();
+                fail();
+            } catch (ConcurrentModificationException e) {
+                //扩容之后继续遍历
+            }
+
+            //只修改值不算结构修改
+            it = map7.keySet().iterator();
+            it.next();
+            map7.put("0", -1);
+            it.next();
+            it.remove();
+            it.next();
+
+            try {
+                map7.values().spliterator().forEachRemaining(v -> map7.remove("1"));
+                fail();
+            } catch (ConcurrentModificationException e) {
+                //遍历中删除
+            }
+            try {
+                Spliterator<String> sp = map7.keySet().spliterator();
+                sp.tryAdvance(k -> map7.remove(k));
+                sp.tryAdvance(k -> {
+                });
+                fail();
+            } catch (ConcurrentModificationException e) {
+                //上一步删除之后继续遍历
+            }
+        }
+    }
+
+    @Test
+    public void parallelTest() {
+        HashMap7<Integer, Integer> map7 = new HashMap7<Integer, Integer>();
+        long expected = 0;
+        for (int i = 0; i < 200000; i++) {
+            map7.put(i, i);
+            expected += i;
+        }
+        assertEquals(expected, map7.values().parallelStream().mapToLong(Integer::longValue).sum());
+        assertEquals(map7.size(), map7.keySet().parallelStream().collect(Collectors.toSet()).size());
+
+        AtomicLong count = new AtomicLong();
+        map7.forEach(1000, (k, v) -> count.addAndGet(v));
+        assertEquals(expected, count.get());
+        assertEquals(Long.valueOf(expected), map7.reduce(1000, (k, v) -> (long) v, Long::sum));
+        assertEquals(Integer.valueOf(12345), map7.search(1000, (k, v) -> v == 12345 ? k : null));
+        assertNull(map7.search(1000, (k, v) -> v < 0 ? k : null));
+    }
+
+    /**
+     * putIfAbsent、computeIfAbsent、computeIfPresent、merge、getOrDefault 与 java.util.HashMap 结果一致
+     */
+    @Test
+    public void computeTest() {
+        for (boolean incremental : new boolean[]{false, true}) {
+            HashMap7<Object, Integer> map7 = new HashMap7<Object, Integer>(incremental);
+            HashMap<Object, Integer> map = new HashMap<Object, Integer>();
+            for (int i = 0; i < 500000; i++) {
+                int n = (int) (Math.random() * 10000);
+                Object key = n % 20 == 0 ? TestKeys.collideString(n) : n + "";
+                int v = i;
+                switch ((int) (Math.random() * 6)) {
+                    case 0:
+                        assertEquals(map.putIfAbsent(key, v), map7.putIfAbsent(key, v));
+                        break;
+                    case 1:
+                        assertEquals(map.computeIfAbsent(key, k -> v), map7.computeIfAbsent(key, k -> v));
+                        break;
+                    case 2:
+                        assertEquals(map.computeIfPresent(key, (k, old) -> old % 3 == 0 ? null : old + v),
+                                map7.computeIfPresent(key, (k, old) -> old % 3 == 0 ? null : old + v));
+                        break;
+                    case 3:
+                        assertEquals(map.merge(key, v, (a, b) -> (a + b) % 7 == 0 ? null : a + b),
+                                map7.merge(key, v, (a, b) -> (a + b) % 7 == 0 ? null : a + b));
+                        break;
+                    case 4:
+                        assertEquals(map.getOrDefault(key, -1), map7.getOrDefault(key, -1));
+                        break;
+                    case 5:
+                        assertEquals(map.remove(key), map7.remove(key));
+                        break;
+                }
+                assertEquals(map.size(), map7.size());
+            }
+            assertEquals(map.entrySet(), map7.entrySet());
+
+            //计算函数中修改当前 map 会快速失败，而不是基于过期的查找结果插入或删除
+            try {
+                map7.computeIfAbsent("absent", k -> {
+                    map7.put("nested", 1);
+                    return 2;
+                });
+                fail();
+            } catch (ConcurrentModificationException e) {
+                assertNull(map7.get("absent"));
+            }
+            map7.put("present", 1);
+            try {
+                map7.merge("present", 1, (a, b) -> {
+                    map7.remove("nested");
+                    return null;
+                });
+                fail();
+            } catch (ConcurrentModificationException e) {
+                assertEquals(Integer.valueOf(1), map7.get("present"));
+            }
+        }
+    }
+
+    @Test
+    public void statsTest() {
+        for (boolean incremental : new boolean[]{false, true}) {
+            HashMap7<Object, Integer> map7 = new HashMap7<Object, Integer>(incremental);
+            for (int i = 0; i < 1000; i++) {
+                map7.put(i, i);
+            }
+            for (int i = 0; i < 100; i++) {
+                map7.put(TestKeys.collideString(i), i);
+            }
+            HashMap7.Stats stats = map7.stats();
+            assertEquals(1100, stats.size());
+            assertEquals(8, stats.resizeCount());
+            assertEquals(1, stats.treeBinCount());
+            assertEquals(100, stats.maxChainLength());
+            int[] histogram = stats.histogram();
+            int buckets = 0, elements = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                buckets += histogram[i];
+                elements += i * histogram[i];
+            }
+            assertEquals(stats.bucketCount(), buckets);
+            assertEquals(1100, elements);
+            assertEquals(1100d / (buckets - histogram[0]), stats.meanChainLength(), 1e-9);
+            if (incremental) {
+                assertTrue(stats.migratedBuckets() > 0);
+            } else {
+                assertTrue(stats.transferNanos() > 0);
+                assertEquals(0, stats.migratedBuckets());
+            }
+            assertTrue(stats.estimatedBytes() > 1100 * 32);
+        }
+    }
+
+    /**
+     * 预设容量之后放入这么多元素不会扩容；并行构造的结果与按顺序 put 相同，key 重复时后面的覆盖前面的
+     */
+    @Test
+    public void buildTest() {
+        HashMap7<Integer, Integer> presized = new HashMap7<Integer, Integer>(100000);
+        for (int i = 0; i < 100000; i++) {
+            presized.put(i, i);
+        }
+        assertEquals(0, presized.stats().resizeCount());
+
+        List<Map.Entry<Object, Integer>> entries = new ArrayList<Map.Entry<Object, Integer>>();
+        HashMap<Object, Integer> map = new HashMap<Object, Integer>();
+        for (int i = 0; i < 300000; i++) {
+            int n = (int) (Math.random() * 100000);
+            Object key = n % 100 == 0 ? TestKeys.collideString(n) : n + "";
+            entries.add(new AbstractMap.SimpleEntry<Object, Integer>(key, i));
+            map.put(key, i);
+        }
+        HashMap7<Object, Integer> built = HashMap7.parallelBuild(entries);
+        assertEquals(map.size(), built.size());
+        assertEquals(map.entrySet(), built.entrySet());
+        HashMap7.Stats stats = built.stats();
+        assertEquals(0, stats.resizeCount());
+        assertTrue(stats.treeBinCount() > 0);
+        built.put("x", -1);
+        assertEquals(Integer.valueOf(-1), built.get("x"));
+
+        HashMap7<Integer, String> fromStream = HashMap7.parallelBuild(
+                IntStream.range(0, 50000).boxed().parallel(), i -> i % 1000, i -> i + "");
+        assertEquals(1000, fromStream.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals((49000 + i) + "", fromStream.get(i));
+        }
+    }
+
+    /**
+     * 不可比较、hashCode 固定的 key
+     */
+    private static class CollideKey {
+        final int n;
+
+        CollideKey(int n) {
+            this.n = n;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollideKey && ((CollideKey) o).n == n;
+        }
+    }
+
+}
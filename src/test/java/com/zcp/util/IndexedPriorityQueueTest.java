@@ -0,0 +1,154 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IndexedPriorityQueueTest {
+
+    /**
+     * 随机的放入、修改、删除、出队，与直接扫描数组找最小值的结果对比
+     */
+    @Test
+    public void randomOps() {
+        Random random = new Random(11);
+        int ids = 500;
+        Integer[] reference = new Integer[ids];
+        IndexedPriorityQueue<Integer> queue = new IndexedPriorityQueue<Integer>(4, null);
+        int size = 0;
+        for (int i = 0; i < 200000; i++) {
+            int id = random.nextInt(ids);
+            int key = random.nextInt(10000);
+            switch (random.nextInt(4)) {
+                case 0:
+                    if (reference[id] == null) {
+                        queue.offer(id, key);
+                        size++;
+                    } else {
+                        assertEquals(reference[id], queue.update(id, key));
+                    }
+                    reference[id] = key;
+                    break;
+                case 1:
+                    assertEquals(reference[id], reference[id] == null ? queue.keyOf(id) : queue.remove(id));
+                    if (reference[id] != null) {
+                        size--;
+                    }
+                    reference[id] = null;
+                    break;
+                case 2:
+                    boolean changed = queue.offerOrDecrease(id, key);
+                    assertEquals(reference[id] == null || key < reference[id], changed);
+                    if (reference[id] == null) {
+                        size++;
+                    }
+                    if (changed) {
+                        reference[id] = key;
+                    }
+                    break;
+                default:
+                    int min = -1;
+                    for (int j = 0; j < ids; j++) {
+                        if (reference[j] != null && (min < 0 || reference[j] < reference[min])) {
+                            min = j;
+                        }
+                    }
+                    if (min < 0) {
+                        assertEquals(-1, queue.poll());
+                    } else {
+                        assertEquals(reference[min], queue.peekKey());
+                        int polled = queue.poll();
+                        assertEquals(reference[min], reference[polled]);
+                        reference[polled] = null;
+                        size--;
+                    }
+            }
+            assertEquals(size, queue.size());
+            assertEquals(reference[id] != null, queue.contains(id));
+        }
+    }
+
+    /**
+     * Dijkstra 最短路与 Bellman-Ford 的结果一致
+     */
+    @Test
+    public void dijkstra() {
+        Random random = new Random(3);
+        int n = 2000;
+        List<int[]> edges = new ArrayList<int[]>();
+        List<List<int[]>> graph = new ArrayList<List<int[]>>();
+        for (int i = 0; i < n; i++) {
+            graph.add(new ArrayList<int[]>());
+        }
+        for (int i = 0; i < n * 5; i++) {
+            int[] edge = {random.nextInt(n), random.nextInt(n), random.nextInt(100) + 1};
+            edges.add(edge);
+            graph.get(edge[0]).add(edge);
+        }
+
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        IndexedPriorityQueue<Long> queue = new IndexedPriorityQueue<Long>();
+        queue.offer(0, 0L);
+        while (!queue.isEmpty()) {
+            long d = queue.peekKey();
+            int u = queue.poll();
+            dist[u] = d;
+            for (int[] edge : graph.get(u)) {
+                if (dist[edge[1]] == Long.MAX_VALUE) {
+                    queue.offerOrDecrease(edge[1], d + edge[2]);
+                }
+            }
+        }
+
+        long[] expected = new long[n];
+        Arrays.fill(expected, Long.MAX_VALUE);
+        expected[0] = 0;
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int[] edge : edges) {
+                if (expected[edge[0]] != Long.MAX_VALUE && expected[edge[0]] + edge[2] < expected[edge[1]]) {
+                    expected[edge[1]] = expected[edge[0]] + edge[2];
+                    changed = true;
+                }
+            }
+        }
+        assertArrayEquals(expected, dist);
+    }
+
+    @Test
+    public void comparatorAndErrors() {
+        IndexedPriorityQueue<String> queue = new IndexedPriorityQueue<String>(0, Collections.reverseOrder());
+        queue.offer(100, "a");
+        queue.offer(3, "c");
+        queue.offer(7, "b");
+        assertEquals(3, queue.peek());
+        queue.update(100, "z");
+        assertEquals(100, queue.poll());
+        assertEquals("b", queue.remove(7));
+        assertNull(queue.keyOf(7));
+        try {
+            queue.offer(3, "x");
+            fail();
+        } catch (IllegalArgumentException e) {
+            //id 已经在队列中
+        }
+        try {
+            queue.update(7, "x");
+            fail();
+        } catch (IllegalArgumentException e) {
+            //id 不在队列中
+        }
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.contains(3));
+        assertEquals(-1, queue.poll());
+    }
+
+}
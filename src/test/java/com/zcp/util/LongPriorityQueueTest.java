@@ -0,0 +1,60 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LongPriorityQueueTest {
+
+    /**
+     * 穿插入队、出队，与 java.util.PriorityQueue 的出队顺序一致，附带的数据跟着优先级走
+     */
+    @Test
+    public void offerAndPoll() {
+        Random random = new Random(5);
+        LongPriorityQueue<String> queue = new LongPriorityQueue<String>(0);
+        java.util.PriorityQueue<Long> reference = new java.util.PriorityQueue<Long>();
+        for (int i = 0; i < 100000; i++) {
+            if (random.nextInt(3) > 0 || reference.isEmpty()) {
+                long key = random.nextLong() >> random.nextInt(64);
+                queue.offer(key, String.valueOf(key));
+                reference.offer(key);
+            } else {
+                long key = reference.poll();
+                assertEquals(key, queue.peekKey());
+                assertEquals(String.valueOf(key), queue.poll());
+            }
+            assertEquals(reference.size(), queue.size());
+        }
+        while (!reference.isEmpty()) {
+            long key = reference.poll();
+            assertEquals(key, queue.peekKey());
+            assertEquals(String.valueOf(key), queue.peek());
+            assertEquals(String.valueOf(key), queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void clearAndEmpty() {
+        LongPriorityQueue<Object> queue = new LongPriorityQueue<Object>();
+        queue.offer(3, null);
+        queue.offer(1, "a");
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        try {
+            queue.peekKey();
+            fail();
+        } catch (IllegalStateException e) {
+            //队列为空
+        }
+        queue.offer(2, null);
+        assertEquals(2, queue.peekKey());
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+}
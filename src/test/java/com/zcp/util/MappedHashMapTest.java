@@ -0,0 +1,69 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MappedHashMapTest {
+
+    /**
+     * 随机操作后关闭，重新打开文件内容不变，compact 之后内容也不变
+     */
+    @Test
+    public void test() throws IOException {
+        File file = File.createTempFile("mapped-hash-map", ".dat");
+        file.delete();
+        HashMap<String, String> map = new HashMap<String, String>();
+        try {
+            MappedHashMap<String, String> mapped = new MappedHashMap<String, String>(file, Serializer.STRING, Serializer.STRING);
+            for (int i = 0; i < 200000; i++) {
+                String key = "key-" + (int) (Math.random() * 20000);
+                switch ((int) (Math.random() * 4)) {
+                    case 0:
+                    case 1:
+                        String val = "val-" + (int) (Math.random() * 100000);
+                        mapped.put(key, val);
+                        map.put(key, val);
+                        break;
+                    case 2:
+                        assertEquals(map.get(key), mapped.get(key));
+                        break;
+                    case 3:
+                        assertEquals(map.remove(key), mapped.remove(key));
+                        break;
+                }
+            }
+            assertEquals(map.size(), mapped.size());
+            mapped.close();
+
+            mapped = new MappedHashMap<String, String>(file, Serializer.STRING, Serializer.STRING);
+            assertEquals(map.size(), mapped.size());
+            for (Map.Entry<String, String> e : map.entrySet()) {
+                assertEquals(e.getValue(), mapped.get(e.getKey()));
+            }
+            assertTrue(mapped.garbageBytes() > 0);
+            long used = mapped.usedBytes();
+            mapped.compact();
+            assertEquals(0, mapped.garbageBytes());
+            assertTrue(mapped.usedBytes() < used);
+            mapped.put("after-compact", "1");
+            mapped.close();
+
+            mapped = new MappedHashMap<String, String>(file, Serializer.STRING, Serializer.STRING);
+            assertEquals(map.size() + 1, mapped.size());
+            assertEquals("1", mapped.get("after-compact"));
+            for (Map.Entry<String, String> e : map.entrySet()) {
+                assertEquals(e.getValue(), mapped.get(e.getKey()));
+            }
+            mapped.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+}
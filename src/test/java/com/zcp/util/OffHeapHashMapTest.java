@@ -0,0 +1,58 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class OffHeapHashMapTest {
+
+    /**
+     * 与 java.util.HashMap 做对数器，value 长度随机，覆盖原地覆盖和重新分配两种更新
+     */
+    @Test
+    public void test() {
+        OffHeapHashMap<String, String> offHeap = new OffHeapHashMap<String, String>(Serializer.STRING, Serializer.STRING);
+        HashMap<String, String> map = new HashMap<String, String>();
+        try {
+            for (int i = 0; i < 300000; i++) {
+                String key = "key-" + (int) (Math.random() * 3000);
+                switch ((int) (Math.random() * 4)) {
+                    case 0:
+                        String val = "val-" + (int) (Math.random() * 100000) + "-中文";
+                        offHeap.put(key, val);
+                        map.put(key, val);
+                        break;
+                    case 1:
+                        assertEquals(map.get(key), offHeap.get(key));
+                        break;
+                    case 2:
+                        assertEquals(map.remove(key), offHeap.remove(key));
+                        break;
+                    case 3:
+                        assertEquals(map.containsKey(key), offHeap.containsKey(key));
+                        break;
+                }
+                assertEquals(map.size(), offHeap.size());
+            }
+            assertTrue(offHeap.offHeapBytes() > 0);
+            offHeap.clear();
+            assertEquals(0, offHeap.size());
+            assertNull(offHeap.get("key-1"));
+        } finally {
+            offHeap.close();
+        }
+        assertEquals(0, offHeap.offHeapBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedTest() {
+        OffHeapHashMap<Long, byte[]> offHeap = new OffHeapHashMap<Long, byte[]>(Serializer.LONG, Serializer.BYTES, 16);
+        offHeap.put(1L, new byte[]{1, 2, 3});
+        assertArrayEquals(new byte[]{1, 2, 3}, offHeap.get(1L));
+        offHeap.close();
+        offHeap.get(1L);
+    }
+
+}
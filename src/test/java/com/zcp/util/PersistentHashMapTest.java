@@ -0,0 +1,67 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PersistentHashMapTest {
+
+    /**
+     * 与 java.util.HashMap 做对数器，同时保留部分旧版本，检查旧版本的内容没有被后续修改影响
+     */
+    @Test
+    public void test() {
+        PersistentHashMap<Object, Integer> pm = PersistentHashMap.empty();
+        HashMap<Object, Integer> map = new HashMap<Object, Integer>();
+        List<PersistentHashMap<Object, Integer>> versions = new ArrayList<PersistentHashMap<Object, Integer>>();
+        List<HashMap<Object, Integer>> expected = new ArrayList<HashMap<Object, Integer>>();
+        for (int i = 0; i < 300000; i++) {
+            int n = (int) (Math.random() * 3000);
+            Object key = n % 10 == 0 ? TestKeys.collideString(n) : n + "";
+            switch ((int) (Math.random() * 4)) {
+                case 0:
+                case 1:
+                    pm = pm.put(key, i);
+                    map.put(key, i);
+                    break;
+                case 2:
+                    pm = pm.remove(key);
+                    map.remove(key);
+                    break;
+                case 3:
+                    assertEquals(map.get(key), pm.get(key));
+                    assertEquals(map.containsKey(key), pm.containsKey(key));
+                    break;
+            }
+            assertEquals(map.size(), pm.size());
+            if (i % 30000 == 0) {
+                versions.add(pm);
+                expected.add(new HashMap<Object, Integer>(map));
+            }
+        }
+        for (int v = 0; v < versions.size(); v++) {
+            HashMap<Object, Integer> actual = new HashMap<Object, Integer>();
+            versions.get(v).forEach(actual::put);
+            assertEquals(expected.get(v), actual);
+        }
+    }
+
+    @Test
+    public void sameHashCode() {
+        PersistentHashMap<String, Integer> pm = PersistentHashMap.empty();
+        pm = pm.put("Aa", 1).put("BB", 2);
+        PersistentHashMap<String, Integer> removed = pm.remove("Aa");
+        assertEquals(Integer.valueOf(1), pm.get("Aa"));
+        assertEquals(Integer.valueOf(2), pm.get("BB"));
+        assertNull(removed.get("Aa"));
+        assertEquals(Integer.valueOf(2), removed.get("BB"));
+        assertEquals(1, removed.size());
+        assertSame(removed, removed.remove("Aa"));
+        assertTrue(removed.remove("BB").isEmpty());
+    }
+
+}
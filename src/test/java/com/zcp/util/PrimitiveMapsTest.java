@@ -0,0 +1,97 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * IntObjectMap、LongObjectMap、LongLongMap 的对数器
+ */
+public class PrimitiveMapsTest {
+
+    private static final int TEST_TIME = 500000;
+
+    @Test
+    public void intObjectMap() {
+        IntObjectMap<Integer> m = new IntObjectMap<Integer>();
+        HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
+        for (int i = 0; i < TEST_TIME; i++) {
+            //负数、0 以及同一个桶里的 key 都要覆盖到
+            int key = ((int) (Math.random() * 2000) - 1000) << (i & 3);
+            int val = (int) (Math.random() * 1000);
+            switch ((int) (Math.random() * 4)) {
+                case 0:
+                    assertEquals(map.put(key, val), m.put(key, val));
+                    break;
+                case 1:
+                    assertEquals(map.get(key), m.get(key));
+                    break;
+                case 2:
+                    assertEquals(map.remove(key), m.remove(key));
+                    break;
+                case 3:
+                    assertEquals(map.containsKey(key), m.containsKey(key));
+                    break;
+            }
+            assertEquals(map.size(), m.size());
+        }
+    }
+
+    @Test
+    public void longObjectMap() {
+        LongObjectMap<Integer> m = new LongObjectMap<Integer>();
+        HashMap<Long, Integer> map = new HashMap<Long, Integer>();
+        for (int i = 0; i < TEST_TIME; i++) {
+            long key = ((long) (Math.random() * 2000) - 1000) << (i & 63);
+            int val = (int) (Math.random() * 1000);
+            switch ((int) (Math.random() * 4)) {
+                case 0:
+                    assertEquals(map.put(key, val), m.put(key, val));
+                    break;
+                case 1:
+                    assertEquals(map.get(key), m.get(key));
+                    break;
+                case 2:
+                    assertEquals(map.remove(key), m.remove(key));
+                    break;
+                case 3:
+                    assertEquals(map.containsKey(key), m.containsKey(key));
+                    break;
+            }
+            assertEquals(map.size(), m.size());
+        }
+    }
+
+    @Test
+    public void longLongMap() {
+        LongLongMap m = new LongLongMap();
+        HashMap<Long, Long> map = new HashMap<Long, Long>();
+        for (int i = 0; i < TEST_TIME; i++) {
+            long key = ((long) (Math.random() * 2000) - 1000) << (i & 63);
+            long val = (long) (Math.random() * 1000);
+            switch ((int) (Math.random() * 5)) {
+                case 0:
+                    Long old = map.put(key, val);
+                    assertEquals(old == null ? 0 : old, m.put(key, val));
+                    break;
+                case 1:
+                    assertEquals(map.getOrDefault(key, -1L).longValue(), m.getOrDefault(key, -1));
+                    break;
+                case 2:
+                    Long removed = map.remove(key);
+                    assertEquals(removed == null ? 0 : removed, m.remove(key));
+                    break;
+                case 3:
+                    assertEquals(map.containsKey(key), m.containsKey(key));
+                    break;
+                case 4:
+                    assertEquals(map.merge(key, val, Long::sum).longValue(), m.addTo(key, val));
+                    break;
+            }
+            assertEquals(map.size(), m.size());
+        }
+    }
+
+}
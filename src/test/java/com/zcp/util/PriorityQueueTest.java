@@ -1,6 +1,12 @@
 package com.zcp.util;
 
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -49,6 +55,78 @@ public class PriorityQueueTest {
 
     }
 
+    /**
+     * 批量建堆、批量加入之后出队顺序与排序结果一致
+     */
+    @Test
+    public void heapifyTest() {
+        Random random = new Random(42);
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            list.add(random.nextInt(1000));
+        }
+        PriorityQueue<Integer> queue = new PriorityQueue<Integer>(list);
+        assertEquals(list.size(), queue.size());
+        //少量加入逐个调整，大量加入整体重新建堆
+        Integer[] few = {-1, 5000, 7};
+        Integer[] many = new Integer[20000];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = random.nextInt(1000);
+        }
+        assertTrue(queue.addAll(few));
+        assertTrue(queue.addAll(many));
+        assertFalse(queue.addAll(new ArrayList<Integer>()));
+        Collections.addAll(list, few);
+        Collections.addAll(list, many);
+        Collections.sort(list);
+        for (Integer expected : list) {
+            assertEquals(expected, queue.poll());
+        }
+        assertNull(queue.poll());
+
+        Comparator<Integer> reversed = Collections.reverseOrder();
+        PriorityQueue<Integer> maxQueue = new PriorityQueue<Integer>(new Integer[0], reversed);
+        maxQueue.addAll(new Integer[]{3, 9, 1});
+        maxQueue.offer(4);
+        assertEquals(Integer.valueOf(9), maxQueue.poll());
+        assertEquals(Integer.valueOf(4), maxQueue.poll());
+        assertEquals(Integer.valueOf(3), maxQueue.poll());
+        assertEquals(Integer.valueOf(1), maxQueue.poll());
+    }
+
+    /**
+     * 不同叉数的堆出队顺序都与排序结果一致
+     */
+    @Test
+    public void arityTest() {
+        Random random = new Random(7);
+        for (int arity = 2; arity <= 8; arity++) {
+            PriorityQueue<Integer> queue = new PriorityQueue<Integer>(1, null, arity);
+            List<Integer> list = new ArrayList<Integer>();
+            for (int i = 0; i < 5000; i++) {
+                int v = random.nextInt(1000);
+                queue.offer(v);
+                list.add(v);
+                //穿插出队
+                if (i % 3 == 0) {
+                    Collections.sort(list);
+                    assertEquals(list.remove(0), queue.poll());
+                }
+            }
+            Collections.sort(list);
+            for (Integer expected : list) {
+                assertEquals(expected, queue.poll());
+            }
+            assertTrue(queue.isEmpty());
+            assertEquals(arity, queue.getArity());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalArity() {
+        new PriorityQueue<Integer>(8, null, 1);
+    }
+
     public static void addTest() {
         PriorityQueue<Integer> priorityQueue = new PriorityQueue<Integer>(8);
 
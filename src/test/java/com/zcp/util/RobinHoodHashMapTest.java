@@ -0,0 +1,59 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class RobinHoodHashMapTest {
+
+    /**
+     * 与 java.util.HashMap 做对数器
+     */
+    @Test
+    public void test() {
+        RobinHoodHashMap<String, Integer> rh = new RobinHoodHashMap<String, Integer>();
+        HashMap<String, Integer> map = new HashMap<String, Integer>();
+        int testTime = 1000000;
+        int range = 2000;
+        for (int i = 0; i < testTime; i++) {
+            int opt = (int) (Math.random() * 5);//0:put,1:get,2:remove,3:contains,4:size
+            String key = (int) (Math.random() * range) + "";
+            switch (opt) {
+                case 0:
+                    int val = (int) (Math.random() * range);
+                    rh.put(key, val);
+                    map.put(key, val);
+                    break;
+                case 1:
+                    assertEquals(map.get(key), rh.get(key));
+                    break;
+                case 2:
+                    assertEquals(map.remove(key), rh.remove(key));
+                    break;
+                case 3:
+                    assertEquals(map.containsKey(key), rh.containsKey(key));
+                    break;
+                case 4:
+                    assertEquals(map.size(), rh.size());
+                    break;
+            }
+        }
+    }
+
+    @Test
+    public void sameHashCode() {
+        //"Aa" 和 "BB" 的 hashCode 相同
+        RobinHoodHashMap<String, Integer> rh = new RobinHoodHashMap<String, Integer>(2);
+        rh.put("Aa", 1);
+        rh.put("BB", 2);
+        assertEquals(Integer.valueOf(1), rh.get("Aa"));
+        assertEquals(Integer.valueOf(2), rh.get("BB"));
+        assertEquals(Integer.valueOf(1), rh.remove("Aa"));
+        assertFalse(rh.containsKey("Aa"));
+        assertEquals(Integer.valueOf(2), rh.get("BB"));
+        assertEquals(1, rh.size());
+    }
+
+}
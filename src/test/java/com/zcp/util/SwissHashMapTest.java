@@ -0,0 +1,66 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class SwissHashMapTest {
+
+    /**
+     * 与 java.util.HashMap 做对数器，删除较多时会产生大量墓碑
+     */
+    @Test
+    public void test() {
+        SwissHashMap<String, Integer> swiss = new SwissHashMap<String, Integer>();
+        HashMap<String, Integer> map = new HashMap<String, Integer>();
+        int testTime = 1000000;
+        int range = 5000;
+        for (int i = 0; i < testTime; i++) {
+            int opt = (int) (Math.random() * 5);//0:put,1:get,2:remove,3:contains,4:size
+            String key = (int) (Math.random() * range) + "";
+            switch (opt) {
+                case 0:
+                    int val = (int) (Math.random() * range);
+                    swiss.put(key, val);
+                    map.put(key, val);
+                    break;
+                case 1:
+                    assertEquals(map.get(key), swiss.get(key));
+                    break;
+                case 2:
+                    assertEquals(map.remove(key), swiss.remove(key));
+                    break;
+                case 3:
+                    assertEquals(map.containsKey(key), swiss.containsKey(key));
+                    break;
+                case 4:
+                    assertEquals(map.size(), swiss.size());
+                    break;
+            }
+        }
+    }
+
+    @Test
+    public void sameHashCode() {
+        //"Aa" 和 "BB" 拼出来的字符串 hashCode 全部相同，H1、H2 都相同，全部落在同一条探测链上
+        SwissHashMap<String, Integer> swiss = new SwissHashMap<String, Integer>(2);
+        String[] keys = new String[64];
+        for (int n = 0; n < keys.length; n++) {
+            keys[n] = TestKeys.collideString(n);
+            swiss.put(keys[n], n);
+        }
+        assertEquals(64, swiss.size());
+        for (int n = 0; n < keys.length; n += 2) {
+            assertEquals(Integer.valueOf(n), swiss.remove(keys[n]));
+        }
+        for (int n = 0; n < keys.length; n++) {
+            assertEquals(n % 2 == 0 ? null : Integer.valueOf(n), swiss.get(keys[n]));
+        }
+        swiss.clear();
+        assertTrue(swiss.isEmpty());
+        assertNull(swiss.get(keys[1]));
+    }
+
+}
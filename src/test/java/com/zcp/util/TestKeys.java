@@ -0,0 +1,19 @@
+package com.zcp.util;
+
+final class TestKeys {
+
+    private TestKeys() {
+    }
+
+    /**
+     * 由 "Aa" 和 "BB" 拼出来的字符串 hashCode 全部相同，n 取 [0, 512) 时各不相同
+     */
+    static String collideString(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 9; i++) {
+            sb.append((n >> i & 1) == 0 ? "Aa" : "BB");
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.zcp.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class TopKTest {
+
+    /**
+     * 结果与全部排序后取前 k 个一致
+     */
+    @Test
+    public void offer() {
+        Random random = new Random(9);
+        List<Integer> all = new ArrayList<Integer>();
+        TopK<Integer> topK = new TopK<Integer>(100);
+        for (int i = 0; i < 100000; i++) {
+            int v = random.nextInt(1000000);
+            all.add(v);
+            topK.offer(v);
+        }
+        Collections.sort(all, Collections.reverseOrder());
+        assertEquals(all.subList(0, 100), topK.toSortedList());
+        assertEquals(all.get(99), topK.threshold());
+        assertFalse(topK.offer(-1));
+        assertTrue(topK.offer(Integer.MAX_VALUE));
+        assertEquals(Integer.valueOf(Integer.MAX_VALUE), topK.toSortedList().get(0));
+        assertEquals(100, topK.size());
+    }
+
+    /**
+     * 元素不足 k 个、k 为 0、自定义比较器
+     */
+    @Test
+    public void edges() {
+        TopK<String> shortest = new TopK<String>(2, Comparator.comparingInt(String::length).reversed());
+        for (String s : new String[]{"ccc", "a", "bbbb", "dd"}) {
+            shortest.offer(s);
+        }
+        assertEquals(Arrays.asList("a", "dd"), shortest.toSortedList());
+
+        TopK<Integer> notFull = new TopK<Integer>(10);
+        notFull.offer(2);
+        notFull.offer(5);
+        assertEquals(Arrays.asList(5, 2), notFull.toSortedList());
+
+        TopK<Integer> zero = new TopK<Integer>(0);
+        assertFalse(zero.offer(1));
+        assertTrue(zero.toSortedList().isEmpty());
+        assertNull(zero.threshold());
+    }
+
+    /**
+     * 并行流合并每个线程的堆，结果与串行一致
+     */
+    @Test
+    public void parallelCollector() {
+        Random random = new Random(1);
+        int[] values = new int[1000000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt();
+        }
+        List<Integer> parallel = IntStream.of(values).boxed().parallel().collect(TopK.collector(1000));
+        List<Integer> serial = IntStream.of(values).boxed().collect(TopK.<Integer>collector(1000));
+        assertEquals(serial, parallel);
+        List<Integer> sorted = new ArrayList<Integer>();
+        for (int v : values) {
+            sorted.add(v);
+        }
+        Collections.sort(sorted, Collections.reverseOrder());
+        assertEquals(sorted.subList(0, 1000), parallel);
+    }
+
+}
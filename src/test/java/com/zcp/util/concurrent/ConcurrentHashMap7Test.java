@@ -0,0 +1,104 @@
+package com.zcp.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentHashMap7Test {
+
+    /**
+     * 单线程与 java.util.HashMap 做对数器
+     */
+    @Test
+    public void test() {
+        ConcurrentHashMap7<String, Integer> map7 = new ConcurrentHashMap7<String, Integer>();
+        HashMap<String, Integer> map = new HashMap<String, Integer>();
+        for (int i = 0; i < 1000000; i++) {
+            String key = (int) (Math.random() * 2000) + "";
+            int val = (int) (Math.random() * 2000);
+            switch ((int) (Math.random() * 6)) {
+                case 0:
+                    assertEquals(map.put(key, val), map7.put(key, val));
+                    break;
+                case 1:
+                    assertEquals(map.get(key), map7.get(key));
+                    break;
+                case 2:
+                    assertEquals(map.remove(key), map7.remove(key));
+                    break;
+                case 3:
+                    assertEquals(map.putIfAbsent(key, val), map7.putIfAbsent(key, val));
+                    break;
+                case 4:
+                    assertEquals(map.size(), map7.size());
+                    break;
+                case 5:
+                    assertEquals(map.remove(key, val), map7.remove(key, val));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 多个线程同时写入不同的 key，扩容期间读线程也在不停地读
+     */
+    @Test
+    public void concurrentPut() throws InterruptedException {
+        final ConcurrentHashMap7<Integer, Integer> map7 = new ConcurrentHashMap7<Integer, Integer>();
+        final int threads = 8;
+        final int perThread = 100000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch end = new CountDownLatch(threads + 1);
+        final boolean[] error = new boolean[1];
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = base; i < base + perThread; i++) {
+                            map7.put(i, i);
+                            if (!Integer.valueOf(i).equals(map7.get(i))) {
+                                error[0] = true;
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    } finally {
+                        end.countDown();
+                    }
+                }
+            }).start();
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    start.await();
+                    for (int i = 0; i < threads * perThread; i++) {
+                        Integer v = map7.get(i);
+                        if (v != null && v != i) {
+                            error[0] = true;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                } finally {
+                    end.countDown();
+                }
+            }
+        }).start();
+        start.countDown();
+        end.await();
+        assertFalse(error[0]);
+        assertEquals(threads * perThread, map7.size());
+        for (int i = 0; i < threads * perThread; i++) {
+            assertEquals(Integer.valueOf(i), map7.get(i));
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.zcp.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LoadingCacheTest {
+
+    /**
+     * 多个线程同时访问同一个未命中的 key，只加载一次，所有线程拿到同一个值
+     */
+    @Test
+    public void singleFlight() throws InterruptedException {
+        final AtomicInteger loads = new AtomicInteger();
+        final LoadingCache<String, String> cache = new LoadingCache<String, String>(key -> {
+            loads.incrementAndGet();
+            Thread.sleep(200);
+            return key + "-" + System.nanoTime();
+        });
+        final int threads = 16;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch end = new CountDownLatch(threads);
+        final String[] results = new String[threads];
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        results[index] = cache.get("hot");
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    } finally {
+                        end.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        end.await();
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.loadCount());
+        for (String result : results) {
+            assertSame(results[0], result);
+        }
+        assertSame(results[0], cache.getIfPresent("hot"));
+        cache.invalidate("hot");
+        assertNull(cache.getIfPresent("hot"));
+        assertNotSame(results[0], cache.get("hot"));
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * 加载失败不缓存，下一次访问重新加载
+     */
+    @Test
+    public void loadFailure() {
+        final AtomicInteger loads = new AtomicInteger();
+        LoadingCache<Integer, Integer> cache = new LoadingCache<Integer, Integer>(key -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new java.io.IOException("backend down");
+            }
+            return key * 2;
+        });
+        try {
+            cache.get(1);
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof java.io.IOException);
+        }
+        assertEquals(0, cache.size());
+        assertEquals(Integer.valueOf(2), cache.get(1));
+        assertEquals(Integer.valueOf(2), cache.get(1));
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * 加载失败时只删除这一次加载的节点，加载期间 put 进来的值保留
+     */
+    @Test
+    public void loadFailureKeepsConcurrentPut() {
+        final LoadingCache<String, String>[] holder = new LoadingCache[1];
+        holder[0] = new LoadingCache<String, String>(key -> {
+            holder[0].put(key, "put during load");
+            throw new IllegalStateException("backend down");
+        });
+        try {
+            holder[0].get("k");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("backend down", e.getMessage());
+        }
+        assertEquals("put during load", holder[0].getIfPresent("k"));
+    }
+
+    /**
+     * CacheLoader 中访问正在加载的同一个 key 直接失败，而不是死锁
+     */
+    @Test(timeout = 5000)
+    public void recursiveLoad() {
+        final LoadingCache<Integer, Integer>[] holder = new LoadingCache[1];
+        holder[0] = new LoadingCache<Integer, Integer>(key -> key == 0 ? 0 : holder[0].get(key == 5 ? 5 : key - 1) + 1);
+        assertEquals(Integer.valueOf(3), holder[0].get(3));
+        try {
+            holder[0].get(5);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("recursive"));
+        }
+        assertNull(holder[0].getIfPresent(5));
+    }
+
+    /**
+     * 超过 refreshAfter 之后访问，先返回旧值，后台刷新完成后返回新值
+     */
+    @Test
+    public void refreshAhead() throws InterruptedException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1000, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(10), new ThreadPoolExecutor.ThreadFactory(),
+                new ThreadPoolExecutor.RejectedExecutionHandler());
+        try {
+            final AtomicInteger version = new AtomicInteger();
+            LoadingCache<String, Integer> cache = new LoadingCache<String, Integer>(
+                    key -> version.incrementAndGet(), 50, TimeUnit.MILLISECONDS, executor);
+            assertEquals(Integer.valueOf(1), cache.get("k"));
+            assertEquals(Integer.valueOf(1), cache.get("k"));
+            Thread.sleep(100);
+            //触发后台刷新，这一次仍然返回旧值
+            assertEquals(Integer.valueOf(1), cache.get("k"));
+            long deadline = System.currentTimeMillis() + 5000;
+            Integer value;
+            while ((value = cache.get("k")) == 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(Integer.valueOf(2), value);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.zcp.util.concurrent;
+
+import com.zcp.util.PersistentHashMap;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SnapshotHashMapTest {
+
+    /**
+     * 多个线程同时写入不同的 key，读线程不停地取快照，快照内部必须自洽：size 与遍历出的元素个数相同，且快照不会再变化
+     */
+    @Test
+    public void concurrentPut() throws InterruptedException {
+        final SnapshotHashMap<Integer, Integer> map = new SnapshotHashMap<Integer, Integer>();
+        final int threads = 4;
+        final int perThread = 20000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch end = new CountDownLatch(threads + 1);
+        final boolean[] error = new boolean[1];
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = base; i < base + perThread; i++) {
+                            map.put(i, i);
+                            if (i % 2 == 0 && !Integer.valueOf(i).equals(map.remove(i))) {
+                                error[0] = true;
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    } finally {
+                        end.countDown();
+                    }
+                }
+            }).start();
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    start.await();
+                    for (int i = 0; i < 200; i++) {
+                        PersistentHashMap<Integer, Integer> snapshot = map.snapshot();
+                        int size = snapshot.size();
+                        final AtomicInteger count = new AtomicInteger();
+                        snapshot.forEach((k, v) -> {
+                            if (!k.equals(v)) {
+                                error[0] = true;
+                            }
+                            count.incrementAndGet();
+                        });
+                        if (count.get() != size || snapshot.size() != size) {
+                            error[0] = true;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                } finally {
+                    end.countDown();
+                }
+            }
+        }).start();
+        start.countDown();
+        end.await();
+        assertFalse(error[0]);
+        assertEquals(threads * perThread / 2, map.size());
+        for (int i = 0; i < threads * perThread; i++) {
+            assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), map.get(i));
+        }
+        assertEquals(Integer.valueOf(1), map.putIfAbsent(1, 2));
+        assertEquals(Integer.valueOf(1), map.get(1));
+    }
+
+}